@@ -0,0 +1,25 @@
+package com.randy.springboot.app12RestApiAndProfiles.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Prints the payload sizes, then runs the JMH command line once per thread count in -Dbenchmark.threads, results go to
+// target/jmh-<threads>-threads.json
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CourseEncodings.printSizes(8, 1000, 10000);
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        for (String threads : System.getProperty("benchmark.threads", "1").split(",")) {
+            int threadCount = Integer.parseInt(threads.trim());
+            new Runner(new OptionsBuilder()
+                    .parent(commandLine)
+                    .threads(threadCount)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("target/jmh-" + threadCount + "-threads.json")
+                    .build()).run();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.randy.springboot.app12RestApiAndProfiles.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.randy.springboot.app12RestApiAndProfiles.Course;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Encode and decode cost of a course list in each format the REST API offers, payload sizes are printed by the
+// BenchmarkRunner before the run
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CourseEncodingBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"8", "1000", "10000"})
+    private int courseCount;
+
+    private List<Course> courses;
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = CourseEncodings.Format.valueOf(format.toUpperCase()).mapper();
+        courses = CourseEncodings.courses(courseCount);
+        writer = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, Course.class));
+        reader = mapper.readerFor(Course[].class);
+        encoded = writer.writeValueAsBytes(courses);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return writer.writeValueAsBytes(courses);
+    }
+
+    @Benchmark
+    public Course[] decode() throws IOException {
+        return reader.readValue(encoded);
+    }
+}
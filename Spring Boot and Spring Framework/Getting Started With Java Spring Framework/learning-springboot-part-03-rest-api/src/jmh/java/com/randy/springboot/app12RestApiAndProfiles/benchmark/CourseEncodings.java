@@ -0,0 +1,66 @@
+package com.randy.springboot.app12RestApiAndProfiles.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import com.randy.springboot.app12RestApiAndProfiles.Course;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+// Mappers set up like the application's (Course is read through its constructor parameter names) and generated courses
+// with realistic name and author lengths
+final class CourseEncodings {
+
+    enum Format {
+        JSON(new JsonFactory()),
+        CBOR(new CBORFactory()),
+        SMILE(new SmileFactory());
+
+        private final JsonFactory factory;
+
+        Format(JsonFactory factory) {
+            this.factory = factory;
+        }
+
+        ObjectMapper mapper() {
+            return new ObjectMapper(factory).registerModule(new ParameterNamesModule(JsonCreator.Mode.DEFAULT));
+        }
+    }
+
+    private CourseEncodings() {
+    }
+
+    static List<Course> courses(int count) {
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(id -> new Course(id, "Learn Course Number " + id, "Author " + id % 50))
+                .toList();
+    }
+
+    // Encoded and gzipped size of every format, the gzipped JSON is what public clients get today
+    static void printSizes(int... courseCounts) throws IOException {
+        System.out.printf("%-8s %8s %12s %12s%n", "format", "courses", "bytes", "gzip bytes");
+        for (int count : courseCounts) {
+            List<Course> courses = courses(count);
+            for (Format format : Format.values()) {
+                byte[] encoded = format.mapper().writeValueAsBytes(courses);
+                System.out.printf("%-8s %8d %12d %12d%n", format.name().toLowerCase(), count, encoded.length,
+                        gzip(encoded).length);
+            }
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
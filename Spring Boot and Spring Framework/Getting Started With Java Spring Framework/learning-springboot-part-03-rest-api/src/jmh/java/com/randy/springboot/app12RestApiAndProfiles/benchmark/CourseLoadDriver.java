@@ -0,0 +1,93 @@
+package com.randy.springboot.app12RestApiAndProfiles.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Closed-loop load against a running server: <url> <connections> <seconds>. Every connection is a virtual thread that
+// sends the next request as soon as the previous answer arrived, so the server sees that many concurrent connections.
+// Prints throughput and latency percentiles of the measured period after a warm up of a third of it.
+public class CourseLoadDriver {
+
+    public static void main(String[] args) throws Exception {
+        URI uri = URI.create(args[0]);
+        int connections = Integer.parseInt(args[1]);
+        long seconds = Long.parseLong(args[2]);
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+
+        try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+             ExecutorService connectionThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            long warmUpEnd = System.nanoTime() + Duration.ofSeconds(seconds).toNanos() / 3;
+            long end = warmUpEnd + Duration.ofSeconds(seconds).toNanos();
+            List<Future<Recorded>> results = new ArrayList<>();
+            for (int i = 0; i < connections; i++) {
+                results.add(connectionThreads.submit(() -> {
+                    Recorded recorded = new Recorded();
+                    long now;
+                    while ((now = System.nanoTime()) < end) {
+                        int status;
+                        try {
+                            status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        } catch (Exception ex) {
+                            status = -1;
+                        }
+                        long finished = System.nanoTime();
+                        if (now >= warmUpEnd) {
+                            recorded.add(finished - now, status == 200);
+                        }
+                    }
+                    return recorded;
+                }));
+            }
+
+            Recorded all = new Recorded();
+            for (Future<Recorded> result : results) {
+                all.addAll(result.get());
+            }
+            long[] latencies = Arrays.copyOf(all.latencies, all.count);
+            Arrays.sort(latencies);
+            System.out.printf("%s connections=%d requests/s=%.0f errors=%d p50=%.1fms p99=%.1fms p99.9=%.1fms max=%.1fms%n",
+                    uri, connections, (double) all.count / seconds, all.errors, millis(latencies, 0.50),
+                    millis(latencies, 0.99), millis(latencies, 0.999), millis(latencies, 1.0));
+        }
+    }
+
+    private static double millis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1);
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    private static final class Recorded {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        void add(long latency, boolean ok) {
+            if (!ok) {
+                errors++;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latency;
+        }
+
+        void addAll(Recorded other) {
+            for (int i = 0; i < other.count; i++) {
+                add(other.latencies[i], true);
+            }
+            errors += other.errors;
+        }
+    }
+}
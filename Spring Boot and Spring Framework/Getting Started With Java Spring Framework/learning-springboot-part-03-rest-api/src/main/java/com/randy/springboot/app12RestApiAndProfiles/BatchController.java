@@ -0,0 +1,215 @@
+package com.randy.springboot.app12RestApiAndProfiles;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.util.RawValue;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.PathContainer;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// POST /batch with [{"id": "a", "path": "/courses?author=..."}, {"id": "b", "path": "/currency-configuration"}]
+// answers [{"id": "a", "status": 200, "headers": {...}, "body": ...}, ...] in the same order. Every item is a GET that
+// calls the controller method on its own virtual thread, no HTTP round trip and no servlet dispatch per item. A failing
+// item gets its own status, the batch itself is 200.
+// Items skip the servlet stack, so they are not in http.server.requests and no @ExceptionHandler sees them: every item
+// is timed in http.server.batch.requests instead (uri is the route's pattern), with the same latency histograms.
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class BatchController {
+    static final int MAX_BATCH_SIZE = 20;
+    static final String ITEM_TIMER = "http.server.batch.requests";
+    // Describe the embedded transfer, not the batch item
+    private static final Set<String> TRANSPORT_HEADERS = Set.of(
+            HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_ENCODING, HttpHeaders.VARY);
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    @Autowired
+    private CourseController courseController;
+
+    @Autowired
+    private CurrencyConfigurationController currencyConfigurationController;
+
+    @Autowired
+    private CurrencyRateController currencyRateController;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final List<Route> routes = List.of(
+            new Route("/courses", (variables, query) -> courseController.retrieveAllCourses(
+                    query.containsKey("limit") ? Integer.valueOf(query.getFirst("limit")) : null,
+                    query.getFirst("cursor"), query.getFirst("author"), query.getFirst("name"),
+                    query.getFirst("sort"), query.containsKey("desc") ? Boolean.valueOf(query.getFirst("desc")) : null,
+                    null, null, null)),
+            new Route("/currency-configuration",
+                    (variables, query) -> ResponseEntity.ok(currencyConfigurationController.retrieveConfiguration())),
+            new Route("/currency-rate/from/{from}/to/{to}", (variables, query) -> ResponseEntity.ok(
+                    currencyRateController.retrieveRate(variables.get("from"), variables.get("to")))));
+
+    @PostMapping("/batch")
+    public List<BatchResponse> batch(@RequestBody List<BatchRequest> requests) throws InterruptedException {
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + MAX_BATCH_SIZE + " requests per batch");
+        }
+        List<Future<BatchResponse>> futures = new ArrayList<>(requests.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (BatchRequest request : requests) {
+                futures.add(executor.submit(() -> timed(request)));
+            }
+        }
+        List<BatchResponse> responses = new ArrayList<>(requests.size());
+        for (Future<BatchResponse> future : futures) {
+            try {
+                responses.add(future.get());
+            } catch (ExecutionException ex) {
+                // dispatch turns every failure into a response, this is an Error
+                throw new IllegalStateException(ex.getCause());
+            }
+        }
+        return responses;
+    }
+
+    private BatchResponse timed(BatchRequest request) {
+        long start = System.nanoTime();
+        Dispatched dispatched = dispatch(request);
+        Timer.builder(ITEM_TIMER)
+                .description("Items of /batch requests, which are not in http.server.requests")
+                .tag("uri", dispatched.uri())
+                .tag("status", String.valueOf(dispatched.response().status()))
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return dispatched.response();
+    }
+
+    // uri is UNKNOWN, like in http.server.requests, when the item matches no route
+    private Dispatched dispatch(BatchRequest request) {
+        if (request == null) {
+            return new Dispatched("UNKNOWN", new BatchResponse(null, HttpStatus.BAD_REQUEST.value(), Map.of(),
+                    Map.of("error", "Batch items must be objects, not null")));
+        }
+        if (request.method() != null && !request.method().equalsIgnoreCase("GET")) {
+            return unknown(error(request, HttpStatus.METHOD_NOT_ALLOWED, "Only GET requests can be batched"));
+        }
+        if (request.path() == null) {
+            return unknown(error(request, HttpStatus.BAD_REQUEST, "path is required"));
+        }
+        UriComponents uri;
+        try {
+            uri = UriComponentsBuilder.fromUriString(request.path()).build();
+        } catch (IllegalArgumentException ex) {
+            return unknown(error(request, HttpStatus.BAD_REQUEST, ex.getMessage()));
+        }
+        PathContainer path = PathContainer.parsePath(uri.getPath() == null ? "" : uri.getPath());
+        for (Route route : routes) {
+            PathPattern.PathMatchInfo match = route.pattern().matchAndExtract(path);
+            if (match != null) {
+                return new Dispatched(route.pattern().getPatternString(),
+                        invoke(request, route, match.getUriVariables(), decode(uri.getQueryParams())));
+            }
+        }
+        return unknown(error(request, HttpStatus.NOT_FOUND, "No batchable endpoint for " + uri.getPath()));
+    }
+
+    private static Dispatched unknown(BatchResponse response) {
+        return new Dispatched("UNKNOWN", response);
+    }
+
+    private BatchResponse invoke(BatchRequest request, Route route, Map<String, String> variables,
+                                 MultiValueMap<String, String> query) {
+        try {
+            ResponseEntity<?> response = route.handler().handle(variables, query);
+            Map<String, String> headers = new LinkedHashMap<>(response.getHeaders().toSingleValueMap());
+            headers.keySet().removeIf(TRANSPORT_HEADERS::contains);
+            // Pre-encoded JSON goes into the batch response as it is
+            Object body = response.getBody() instanceof byte[] json
+                    ? new RawValue(new String(json, StandardCharsets.UTF_8))
+                    : response.getBody();
+            return new BatchResponse(request.id(), response.getStatusCode().value(), headers, body);
+        } catch (NumberFormatException ex) {
+            return error(request, HttpStatus.BAD_REQUEST, ex.getMessage());
+        } catch (ResponseStatusException ex) {
+            return error(request, ex.getStatusCode().value(), ex.getReason());
+        } catch (RuntimeException ex) {
+            ResponseStatus status = AnnotatedElementUtils.findMergedAnnotation(ex.getClass(), ResponseStatus.class);
+            return status != null
+                    ? error(request, status.code(), ex.getMessage())
+                    : failed(request, ex);
+        }
+    }
+
+    private BatchResponse failed(BatchRequest request, RuntimeException ex) {
+        logger.error("Batch item {} ({}) failed", request.id(), request.path(), ex);
+        return error(request, HttpStatus.INTERNAL_SERVER_ERROR, "Request failed");
+    }
+
+    private static MultiValueMap<String, String> decode(MultiValueMap<String, String> encoded) {
+        MultiValueMap<String, String> decoded = new LinkedMultiValueMap<>(encoded.size());
+        encoded.forEach((name, values) -> values.forEach(value -> decoded.add(
+                UriUtils.decode(name, StandardCharsets.UTF_8),
+                value == null ? null : UriUtils.decode(value, StandardCharsets.UTF_8))));
+        return decoded;
+    }
+
+    private static BatchResponse error(BatchRequest request, HttpStatus status, String message) {
+        return error(request, status.value(), message);
+    }
+
+    private static BatchResponse error(BatchRequest request, int status, String message) {
+        return new BatchResponse(request.id(), status, Map.of(), Map.of("error", message == null ? "" : message));
+    }
+
+    public record BatchRequest(String id, String method, String path) {
+    }
+
+    public record BatchResponse(String id, int status,
+                                @JsonInclude(JsonInclude.Include.NON_EMPTY) Map<String, String> headers, Object body) {
+    }
+
+    private record Dispatched(String uri, BatchResponse response) {
+    }
+
+    // Path variables and decoded query parameters in, what the controller method answers out
+    private interface Handler {
+        ResponseEntity<?> handle(Map<String, String> variables, MultiValueMap<String, String> query);
+    }
+
+    private record Route(PathPattern pattern, Handler handler) {
+
+        Route(String pattern, Handler handler) {
+            this(PathPatternParser.defaultInstance.parse(pattern), handler);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.randy.springboot.app12RestApiAndProfiles;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+// Holds the course list as an immutable snapshot together with its JSON, CBOR and Smile encodings and indexes, built
+// once per change instead of per request
+@Component
+public class CourseCatalog {
+
+    // In order of preference when the client accepts several equally
+    private static final List<MediaType> ENCODINGS = List.of(
+            MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, BinaryEncodingConfiguration.SMILE);
+
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper cborMapper;
+    private final ObjectMapper smileMapper;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    public CourseCatalog(ObjectMapper objectMapper, MappingJackson2CborHttpMessageConverter cborConverter,
+                         MappingJackson2SmileHttpMessageConverter smileConverter) {
+        this.objectMapper = objectMapper;
+        this.cborMapper = cborConverter.getObjectMapper();
+        this.smileMapper = smileConverter.getObjectMapper();
+        replace(List.of(
+                new Course(1, "Learn AWS", "Randy Huynh"),
+                new Course(2, "Learn DevOps", "Randy Huynh"),
+                new Course(3, "Learn Azure", "Randy Huynh"),
+                new Course(4, "Learn Java", "Randy Huynh"),
+                new Course(5, "Learn Java", "Randy Huynh"),
+                new Course(6, "Learn Java", "Randy Huynh"),
+                new Course(7, "Learn Java", "Randy Huynh"),
+                new Course(8, "Learn Java", "Randy Huynh")
+        ));
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    // Requests keep reading the previous snapshot until the new one is fully encoded
+    public void replace(List<Course> courses) {
+        snapshot.set(encode(List.copyOf(courses)));
+    }
+
+    // The pre-encoded representation to send for an Accept header. Anything that does not accept CBOR or Smile gets
+    // JSON, like before they existed.
+    public static MediaType preferredEncoding(List<MediaType> accepted) {
+        List<MediaType> sorted = new ArrayList<>(accepted);
+        MimeTypeUtils.sortBySpecificity(sorted);
+        for (MediaType type : sorted) {
+            for (MediaType encoding : ENCODINGS) {
+                if (type.getQualityValue() > 0 && type.isCompatibleWith(encoding)) {
+                    return encoding;
+                }
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    private Snapshot encode(List<Course> courses) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(courses);
+            // Weak, the identity and the gzip encoding share it, and so do the JSON, CBOR and Smile representations
+            return new Snapshot(courses, json, gzip(json), cborMapper.writeValueAsBytes(courses),
+                    smileMapper.writeValueAsBytes(courses), "W/\"" + DigestUtils.md5DigestAsHex(json) + "\"",
+                    new CourseIndex(courses));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not encode the course catalog", ex);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return out.toByteArray();
+    }
+
+    // The byte arrays are shared by every request, never modify them. Binary encodings are not gzipped, they are
+    // already compact and gzip would cost more CPU than it saves on the wire for internal callers.
+    public record Snapshot(List<Course> courses, byte[] json, byte[] gzipJson, byte[] cbor, byte[] smile, String etag,
+                           CourseIndex index) {
+
+        public byte[] encoded(MediaType type) {
+            if (MediaType.APPLICATION_CBOR.equals(type)) {
+                return cbor;
+            }
+            return BinaryEncodingConfiguration.SMILE.equals(type) ? smile : json;
+        }
+    }
+}
@@ -1,24 +1,133 @@
 package com.randy.springboot.app12RestApiAndProfiles;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class CourseController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String NDJSON = "application/x-ndjson";
+    static final int DEFAULT_LIMIT = 50;
+    static final int MAX_LIMIT = 500;
+
+    @Autowired
+    private CourseCatalog catalog;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Without parameters: the whole catalog pre-encoded as JSON (gzipped when the client accepts it), CBOR or Smile.
+    // With any of limit, cursor, author, name (exact matches), sort (id or name) or desc: one page from the catalog's
+    // indexes, the X-Next-Cursor header holds the cursor of the next page and is missing on the last one.
     @RequestMapping("/courses")
-    public List<Course> retrieveAllCourses(){
-        return Arrays.asList(
-                new Course(1, "Learn AWS", "Randy Huynh"),
-                new Course(2, "Learn DevOps", "Randy Huynh"),
-                new Course(3, "Learn Azure", "Randy Huynh"),
-                new Course(4, "Learn Java", "Randy Huynh"),
-                new Course(5, "Learn Java", "Randy Huynh"),
-                new Course(6, "Learn Java", "Randy Huynh"),
-                new Course(7, "Learn Java", "Randy Huynh"),
-                new Course(8, "Learn Java", "Randy Huynh")
-        );
+    public ResponseEntity<?> retrieveAllCourses(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) Boolean desc,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        CourseCatalog.Snapshot snapshot = catalog.getSnapshot();
+        if (limit != null || cursor != null || author != null || name != null || sort != null || desc != null) {
+            return retrievePage(snapshot, limit, cursor, author, name, sort, desc);
+        }
+        if (ifNoneMatch != null && ifNoneMatch.contains(snapshot.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.etag()).build();
+        }
+        MediaType encoding = negotiate(accept);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(snapshot.etag())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(encoding);
+        if (!MediaType.APPLICATION_JSON.equals(encoding)) {
+            return response.body(snapshot.encoded(encoding));
+        }
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.gzipJson());
+        }
+        return response.body(snapshot.json());
+    }
+
+    // Accept: application/x-ndjson, one course per line, each line flushed as soon as it is written.
+    // Takes the same author, name, sort and desc filters but no limit. Writes block while the client is not reading,
+    // and only the course being written is held in memory.
+    @RequestMapping(value = "/courses", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamAllCourses(
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) Boolean desc) {
+        Iterator<Course> courses;
+        try {
+            CourseIndex.Sort order = sort == null ? CourseIndex.Sort.ID : CourseIndex.Sort.valueOf(sort.toUpperCase());
+            courses = catalog.getSnapshot().index().iterator(author, name, order, Boolean.TRUE.equals(desc));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                // Lines are separated by the newline below, not by Jackson's default space between root values
+                generator.setRootValueSeparator(null);
+                while (courses.hasNext()) {
+                    objectMapper.writeValue(generator, courses.next());
+                    generator.writeRaw('\n');
+                    generator.flush();
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    // The pre-encoded bytes bypass the message converters, so the encoding is picked here
+    private static MediaType negotiate(String accept) {
+        if (accept == null) {
+            return MediaType.APPLICATION_JSON;
+        }
+        try {
+            return CourseCatalog.preferredEncoding(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+    }
+
+    private ResponseEntity<List<Course>> retrievePage(CourseCatalog.Snapshot snapshot, Integer limit, String cursor,
+                                                      String author, String name, String sort, Boolean desc) {
+        int pageSize = limit == null ? DEFAULT_LIMIT : limit;
+        if (pageSize < 1 || pageSize > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_LIMIT);
+        }
+        CourseIndex.Page page;
+        try {
+            CourseIndex.Sort order = sort == null ? CourseIndex.Sort.ID : CourseIndex.Sort.valueOf(sort.toUpperCase());
+            page = snapshot.index().query(author, name, order, Boolean.TRUE.equals(desc), cursor, pageSize);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.courses());
     }
 }
@@ -0,0 +1,155 @@
+package com.randy.springboot.app12RestApiAndProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+// Read-only indexes over one catalog snapshot: for every filter (none, author, name, author + name) a hash lookup
+// returns the matching courses pre-sorted by id and by name, so a page is a binary search for the cursor plus
+// a copy of at most limit courses.
+public class CourseIndex {
+
+    public enum Sort {
+        ID(Comparator.comparingLong(Course::getId)),
+        NAME(Comparator.comparing(Course::getName).thenComparingLong(Course::getId));
+
+        private final Comparator<Course> comparator;
+
+        Sort(Comparator<Course> comparator) {
+            this.comparator = comparator;
+        }
+    }
+
+    public record Page(List<Course> courses, String nextCursor) {
+    }
+
+    private static final SortedCourses EMPTY = new SortedCourses(new Course[0], new Course[0]);
+
+    private final SortedCourses all;
+    private final Map<String, SortedCourses> byAuthor;
+    private final Map<String, SortedCourses> byName;
+    private final Map<String, SortedCourses> byAuthorAndName;
+
+    public CourseIndex(List<Course> courses) {
+        this.all = SortedCourses.of(courses);
+        Map<String, List<Course>> authors = new HashMap<>();
+        Map<String, List<Course>> names = new HashMap<>();
+        Map<String, List<Course>> authorsAndNames = new HashMap<>();
+        for (Course course : courses) {
+            authors.computeIfAbsent(course.getAuthor(), key -> new ArrayList<>()).add(course);
+            names.computeIfAbsent(course.getName(), key -> new ArrayList<>()).add(course);
+            authorsAndNames.computeIfAbsent(authorAndName(course.getAuthor(), course.getName()), key -> new ArrayList<>()).add(course);
+        }
+        this.byAuthor = sorted(authors);
+        this.byName = sorted(names);
+        this.byAuthorAndName = sorted(authorsAndNames);
+    }
+
+    // author and name are exact matches, null means no filter. cursor is the nextCursor of the previous page.
+    public Page query(String author, String name, Sort sort, boolean descending, String cursor, int limit) {
+        Course[] sorted = matches(author, name, sort);
+
+        int start;
+        if (cursor == null) {
+            start = descending ? sorted.length - 1 : 0;
+        } else {
+            // The cursor course itself may be gone from a newer snapshot, so search for its position rather than for it
+            int position = Arrays.binarySearch(sorted, decodeCursor(cursor), sort.comparator);
+            if (position >= 0) {
+                start = descending ? position - 1 : position + 1;
+            } else {
+                int insertion = -position - 1;
+                start = descending ? insertion - 1 : insertion;
+            }
+        }
+
+        List<Course> page = new ArrayList<>(Math.min(limit, sorted.length));
+        int step = descending ? -1 : 1;
+        int i = start;
+        for (; i >= 0 && i < sorted.length && page.size() < limit; i += step) {
+            page.add(sorted[i]);
+        }
+        boolean more = i >= 0 && i < sorted.length;
+        return new Page(page, more ? encodeCursor(page.get(page.size() - 1)) : null);
+    }
+
+    // Walks every match in order without copying them
+    public Iterator<Course> iterator(String author, String name, Sort sort, boolean descending) {
+        Course[] sorted = matches(author, name, sort);
+        return new Iterator<>() {
+            private int next = descending ? sorted.length - 1 : 0;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0 && next < sorted.length;
+            }
+
+            @Override
+            public Course next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Course course = sorted[next];
+                next += descending ? -1 : 1;
+                return course;
+            }
+        };
+    }
+
+    private Course[] matches(String author, String name, Sort sort) {
+        SortedCourses matches;
+        if (author != null && name != null) {
+            matches = byAuthorAndName.getOrDefault(authorAndName(author, name), EMPTY);
+        } else if (author != null) {
+            matches = byAuthor.getOrDefault(author, EMPTY);
+        } else if (name != null) {
+            matches = byName.getOrDefault(name, EMPTY);
+        } else {
+            matches = all;
+        }
+        return sort == Sort.ID ? matches.byId() : matches.byName();
+    }
+
+    // Opaque to clients: the sort key (id and name) of the last course on the page
+    private static String encodeCursor(Course course) {
+        String key = course.getId() + ":" + course.getName();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Course decodeCursor(String cursor) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = key.indexOf(':');
+            return new Course(Long.parseLong(key.substring(0, separator)), key.substring(separator + 1), null);
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Invalid cursor " + cursor, ex);
+        }
+    }
+
+    private static String authorAndName(String author, String name) {
+        return author + '\u0000' + name;
+    }
+
+    private static Map<String, SortedCourses> sorted(Map<String, List<Course>> groups) {
+        Map<String, SortedCourses> sorted = new HashMap<>(groups.size() * 2);
+        groups.forEach((key, courses) -> sorted.put(key, SortedCourses.of(courses)));
+        return sorted;
+    }
+
+    private record SortedCourses(Course[] byId, Course[] byName) {
+        static SortedCourses of(List<Course> courses) {
+            Course[] byId = courses.toArray(new Course[0]);
+            Arrays.sort(byId, Sort.ID.comparator);
+            Course[] byName = courses.toArray(new Course[0]);
+            Arrays.sort(byName, Sort.NAME.comparator);
+            return new SortedCourses(byId, byName);
+        }
+    }
+}
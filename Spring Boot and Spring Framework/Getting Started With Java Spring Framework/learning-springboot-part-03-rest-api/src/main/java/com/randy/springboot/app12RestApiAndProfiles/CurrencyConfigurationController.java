@@ -1,6 +1,7 @@
 package com.randy.springboot.app12RestApiAndProfiles;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -8,12 +9,13 @@ import java.util.Arrays;
 import java.util.List;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class CurrencyConfigurationController {
     @Autowired
-    private CurrencyServiceConfiguration configuration;
+    private CurrencyServiceConfigurationHolder configuration;
 
     @RequestMapping("/currency-configuration")
     public CurrencyServiceConfiguration retrieveConfiguration() {
-        return configuration;
+        return configuration.get();
     }
 }
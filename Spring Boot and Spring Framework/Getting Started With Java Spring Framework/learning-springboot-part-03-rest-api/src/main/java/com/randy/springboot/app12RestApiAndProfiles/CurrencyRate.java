@@ -0,0 +1,10 @@
+package com.randy.springboot.app12RestApiAndProfiles;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.math.BigDecimal;
+
+// Body of the currency service's /currency-exchange/from/{from}/to/{to}, fields we do not use are ignored
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record CurrencyRate(String from, String to, BigDecimal conversionMultiple) {
+}
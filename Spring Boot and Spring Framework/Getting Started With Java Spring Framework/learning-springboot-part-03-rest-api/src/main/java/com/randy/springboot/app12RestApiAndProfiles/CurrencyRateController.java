@@ -0,0 +1,26 @@
+package com.randy.springboot.app12RestApiAndProfiles;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class CurrencyRateController {
+    @Autowired
+    private CurrencyServiceClient client;
+
+    // 503 when the currency service fails and no recent enough rate is cached
+    @RequestMapping("/currency-rate/from/{from}/to/{to}")
+    public CurrencyRate retrieveRate(@PathVariable String from, @PathVariable String to) {
+        try {
+            return client.getRate(from.toUpperCase(), to.toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+    }
+}
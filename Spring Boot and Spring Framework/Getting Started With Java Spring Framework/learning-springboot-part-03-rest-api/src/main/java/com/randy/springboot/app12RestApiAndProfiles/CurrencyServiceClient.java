@@ -0,0 +1,185 @@
+package com.randy.springboot.app12RestApiAndProfiles;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+// Client for the currency service in CurrencyServiceConfiguration, read once per call so a refreshed url or key applies
+// to the next call.
+// One HttpClient for the application: it keeps HTTP/1.1 connections alive and reuses them, and multiplexes all calls
+// over one connection when the service speaks HTTP/2. Rates are cached for cacheTtlMillis, concurrent lookups of the
+// same pair share one call, and a circuit breaker stops calling a failing service. Every call has a request timeout,
+// responses are handled on virtual threads, so a slow service costs callers at most that timeout and no pool threads.
+@Component
+public class CurrencyServiceClient implements AutoCloseable {
+    private static final Pattern CURRENCY_CODE = Pattern.compile("[A-Z]{3}");
+
+    private final Supplier<CurrencyServiceConfiguration> configuration;
+    private final CurrencyServiceClientProperties properties;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient httpClient;
+    private final CircuitBreaker circuitBreaker;
+    private final Map<String, CachedRate> cache = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<CurrencyRate>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+
+    public CurrencyServiceClient(Supplier<CurrencyServiceConfiguration> configuration,
+                                 CurrencyServiceClientProperties properties, ObjectMapper objectMapper) {
+        this.configuration = configuration;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(properties.getConnectTimeoutMillis()))
+                .executor(executor)
+                .build();
+        this.circuitBreaker = new CircuitBreaker(properties.getFailureThreshold(),
+                TimeUnit.MILLISECONDS.toNanos(properties.getOpenMillis()));
+    }
+
+    // Fresh cached rate, else the result of a call (shared with concurrent lookups of the same pair), else a stale
+    // cached rate when the call failed or the circuit is open
+    public CurrencyRate getRate(String from, String to) {
+        if (!CURRENCY_CODE.matcher(from).matches() || !CURRENCY_CODE.matcher(to).matches()) {
+            throw new IllegalArgumentException("Currency codes are three upper case letters, got " + from + " and " + to);
+        }
+        String key = from + to;
+        CachedRate cached = cache.get(key);
+        if (cached != null && System.nanoTime() < cached.freshUntil()) {
+            return cached.rate();
+        }
+        try {
+            // Waits on a copy, so a timed out caller does not fail the lookup for the others sharing it
+            return lookup(key, from, to).copy()
+                    .orTimeout(properties.getConnectTimeoutMillis() + properties.getRequestTimeoutMillis(), TimeUnit.MILLISECONDS)
+                    .join();
+        } catch (CompletionException ex) {
+            if (cached != null && System.nanoTime() < cached.staleUntil()) {
+                return cached.rate();
+            }
+            if (ex.getCause() instanceof CurrencyServiceUnavailableException unavailable) {
+                throw unavailable;
+            }
+            throw new CurrencyServiceUnavailableException("Could not get the " + from + " to " + to + " rate",
+                    ex.getCause());
+        }
+    }
+
+    // Calls made to the service, cache hits and coalesced lookups do not count
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    private CompletableFuture<CurrencyRate> lookup(String key, String from, String to) {
+        CompletableFuture<CurrencyRate> lookup = new CompletableFuture<>();
+        CompletableFuture<CurrencyRate> existing = inFlight.putIfAbsent(key, lookup);
+        if (existing != null) {
+            return existing;
+        }
+        CompletableFuture<CurrencyRate> call;
+        try {
+            call = call(from, to);
+        } catch (RuntimeException ex) {
+            // Still goes through the cleanup below, or later lookups of the pair would wait on it forever
+            call = CompletableFuture.failedFuture(ex);
+        }
+        call.whenComplete((rate, failure) -> {
+            // Cached before the lookup is removed, so a caller arriving in between finds one or the other
+            if (failure == null) {
+                long now = System.nanoTime();
+                cache.put(key, new CachedRate(rate, now + TimeUnit.MILLISECONDS.toNanos(properties.getCacheTtlMillis()),
+                        now + TimeUnit.MILLISECONDS.toNanos(properties.getMaxStaleMillis())));
+            }
+            inFlight.remove(key, lookup);
+            if (failure == null) {
+                lookup.complete(rate);
+            } else {
+                lookup.completeExceptionally(failure instanceof CompletionException ? failure.getCause() : failure);
+            }
+        });
+        return lookup;
+    }
+
+    private CompletableFuture<CurrencyRate> call(String from, String to) {
+        if (!circuitBreaker.tryAcquire()) {
+            return CompletableFuture.failedFuture(new CurrencyServiceUnavailableException(
+                    "Circuit open, not calling the currency service for " + from + " to " + to));
+        }
+        calls.increment();
+        CurrencyServiceConfiguration service = configuration.get();
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(service.url() + "/currency-exchange/from/"
+                            + from + "/to/" + to))
+                    .timeout(Duration.ofMillis(properties.getRequestTimeoutMillis()))
+                    .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                    .header(HttpHeaders.AUTHORIZATION, basicAuthorization(service))
+                    .GET()
+                    .build();
+        } catch (IllegalArgumentException ex) {
+            // A bad url is the service's failure, not the caller's: it counts against the circuit and answers 503
+            circuitBreaker.onFailure();
+            return CompletableFuture.failedFuture(new CurrencyServiceUnavailableException(
+                    "Invalid currency service url " + service.url(), ex));
+        }
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    if (response.statusCode() != 200) {
+                        throw new CurrencyServiceUnavailableException(
+                                "Currency service answered " + response.statusCode() + " for " + from + " to " + to);
+                    }
+                    try {
+                        return objectMapper.readValue(response.body(), CurrencyRate.class);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                })
+                .whenComplete((rate, failure) -> {
+                    if (failure == null) {
+                        circuitBreaker.onSuccess();
+                    } else {
+                        circuitBreaker.onFailure();
+                    }
+                });
+    }
+
+    private static String basicAuthorization(CurrencyServiceConfiguration service) {
+        String credentials = service.username() + ":" + service.key();
+        return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void close() {
+        httpClient.close();
+        executor.close();
+    }
+
+    private record CachedRate(CurrencyRate rate, long freshUntil, long staleUntil) {
+    }
+}
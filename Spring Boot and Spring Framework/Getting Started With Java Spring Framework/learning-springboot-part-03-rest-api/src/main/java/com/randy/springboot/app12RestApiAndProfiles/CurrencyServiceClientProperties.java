@@ -0,0 +1,75 @@
+package com.randy.springboot.app12RestApiAndProfiles;
+
+
+//currency-service.client.connect-timeout-millis=500
+//currency-service.client.request-timeout-millis=2000
+//currency-service.client.cache-ttl-millis=60000
+//currency-service.client.max-stale-millis=600000
+//currency-service.client.failure-threshold=5
+//currency-service.client.open-millis=30000
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@ConfigurationProperties(prefix = "currency-service.client")
+@Component
+public class CurrencyServiceClientProperties {
+    private long connectTimeoutMillis = 500;
+    private long requestTimeoutMillis = 2000;
+    // Rates younger than this are served without calling the service
+    private long cacheTtlMillis = 60000;
+    // Rates younger than this are still served when the service fails or the circuit is open
+    private long maxStaleMillis = 600000;
+    // Consecutive failures that open the circuit
+    private int failureThreshold = 5;
+    // How long an open circuit rejects calls before letting one trial call through
+    private long openMillis = 30000;
+
+    public long getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    public void setConnectTimeoutMillis(long connectTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+    }
+
+    public long getRequestTimeoutMillis() {
+        return requestTimeoutMillis;
+    }
+
+    public void setRequestTimeoutMillis(long requestTimeoutMillis) {
+        this.requestTimeoutMillis = requestTimeoutMillis;
+    }
+
+    public long getCacheTtlMillis() {
+        return cacheTtlMillis;
+    }
+
+    public void setCacheTtlMillis(long cacheTtlMillis) {
+        this.cacheTtlMillis = cacheTtlMillis;
+    }
+
+    public long getMaxStaleMillis() {
+        return maxStaleMillis;
+    }
+
+    public void setMaxStaleMillis(long maxStaleMillis) {
+        this.maxStaleMillis = maxStaleMillis;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public void setFailureThreshold(int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+    }
+
+    public long getOpenMillis() {
+        return openMillis;
+    }
+
+    public void setOpenMillis(long openMillis) {
+        this.openMillis = openMillis;
+    }
+}
@@ -5,37 +5,12 @@ package com.randy.springboot.app12RestApiAndProfiles;
 //currency-service.username=
 //currency-service.key=
 
-import org.springframework.boot.context.properties.ConfigurationProperties;
-import org.springframework.stereotype.Component;
+// Immutable, bound by CurrencyServiceConfigurationHolder. Read it once per operation so url, username and key always
+// come from the same refresh.
+public record CurrencyServiceConfiguration(String url, String username, String key) {
 
-@ConfigurationProperties(prefix = "currency-service")
-@Component
-public class CurrencyServiceConfiguration {
-    private String url;
-    private String username;
-    private String key;
-
-    public String getUrl() {
-        return url;
-    }
-
-    public void setUrl(String url) {
-        this.url = url;
-    }
-
-    public String getUsername() {
-        return username;
-    }
-
-    public void setUsername(String username) {
-        this.username = username;
-    }
-
-    public String getKey() {
-        return key;
-    }
-
-    public void setKey(String key) {
-        this.key = key;
+    // For responses that must not reveal the key
+    public CurrencyServiceConfiguration withMaskedKey() {
+        return new CurrencyServiceConfiguration(url, username, key == null ? null : "******");
     }
 }
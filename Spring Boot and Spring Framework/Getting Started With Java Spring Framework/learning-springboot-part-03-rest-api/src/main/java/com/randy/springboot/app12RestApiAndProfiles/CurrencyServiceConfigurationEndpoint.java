@@ -0,0 +1,28 @@
+package com.randy.springboot.app12RestApiAndProfiles;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+// GET /actuator/currencyconfig shows the published snapshot, POST re-reads the configuration files and publishes the
+// result. The key is masked in both.
+@Component
+@Endpoint(id = "currencyconfig")
+public class CurrencyServiceConfigurationEndpoint {
+    private final CurrencyServiceConfigurationHolder holder;
+
+    public CurrencyServiceConfigurationEndpoint(CurrencyServiceConfigurationHolder holder) {
+        this.holder = holder;
+    }
+
+    @ReadOperation
+    public CurrencyServiceConfiguration configuration() {
+        return holder.get().withMaskedKey();
+    }
+
+    @WriteOperation
+    public CurrencyServiceConfiguration refresh() {
+        return holder.refresh().withMaskedKey();
+    }
+}
@@ -0,0 +1,79 @@
+package com.randy.springboot.app12RestApiAndProfiles;
+
+import org.springframework.boot.context.config.ConfigDataEnvironmentPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+// Publishes the currency-service.* properties as an immutable snapshot. get() is a single volatile read, refresh()
+// re-reads the configuration files (including spring.config.additional-location, e.g. a mounted secret) and swaps in a
+// new snapshot, so the key can be rotated without a restart. Requests in flight keep the snapshot they already read.
+@Component
+public class CurrencyServiceConfigurationHolder implements Supplier<CurrencyServiceConfiguration> {
+    private static final String PREFIX = "currency-service";
+    // Property sources the config data loader creates, everything else (command line, system properties, environment
+    // variables, test properties) is carried over unchanged
+    private static final String CONFIG_RESOURCE_PREFIX = "Config resource ";
+    private static final String ATTACHED_SOURCE_NAME = "configurationProperties";
+
+    private final ConfigurableEnvironment environment;
+    private final ResourceLoader resourceLoader;
+    private final AtomicReference<CurrencyServiceConfiguration> current = new AtomicReference<>();
+
+    public CurrencyServiceConfigurationHolder(ConfigurableEnvironment environment, ResourceLoader resourceLoader) {
+        this.environment = environment;
+        this.resourceLoader = resourceLoader;
+        current.set(bind(environment));
+    }
+
+    @Override
+    public CurrencyServiceConfiguration get() {
+        return current.get();
+    }
+
+    // The previous snapshot stays published when the files cannot be read or bound, or the url is not a valid one
+    public CurrencyServiceConfiguration refresh() {
+        CurrencyServiceConfiguration refreshed = bind(reload());
+        current.set(refreshed);
+        return refreshed;
+    }
+
+    private ConfigurableEnvironment reload() {
+        StandardEnvironment reloaded = new StandardEnvironment();
+        for (PropertySource<?> source : environment.getPropertySources()) {
+            if (!source.getName().startsWith(CONFIG_RESOURCE_PREFIX) && !source.getName().equals(ATTACHED_SOURCE_NAME)) {
+                // Replaces the reloaded environment's own system sources, so the order stays the live one
+                reloaded.getPropertySources().addLast(source);
+            }
+        }
+        ConfigDataEnvironmentPostProcessor.applyTo(reloaded, resourceLoader, null, List.of());
+        return reloaded;
+    }
+
+    private static CurrencyServiceConfiguration bind(ConfigurableEnvironment environment) {
+        CurrencyServiceConfiguration configuration = Binder.get(environment)
+                .bind(PREFIX, CurrencyServiceConfiguration.class)
+                .orElseThrow(() -> new IllegalStateException("No " + PREFIX + ".* properties found"));
+        if (configuration.url() == null || configuration.url().isBlank()) {
+            throw new IllegalStateException(PREFIX + ".url must be set");
+        }
+        try {
+            URI url = new URI(configuration.url());
+            if (!"http".equalsIgnoreCase(url.getScheme()) && !"https".equalsIgnoreCase(url.getScheme()) || url.getHost() == null) {
+                throw new IllegalStateException(PREFIX + ".url must be an absolute http or https url, got " + configuration.url());
+            }
+        } catch (URISyntaxException ex) {
+            throw new IllegalStateException(PREFIX + ".url must be an absolute http or https url, got " + configuration.url(), ex);
+        }
+        return configuration;
+    }
+}
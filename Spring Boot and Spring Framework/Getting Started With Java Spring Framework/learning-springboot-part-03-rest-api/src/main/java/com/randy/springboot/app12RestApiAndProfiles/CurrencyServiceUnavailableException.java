@@ -0,0 +1,16 @@
+package com.randy.springboot.app12RestApiAndProfiles;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class CurrencyServiceUnavailableException extends RuntimeException {
+
+    public CurrencyServiceUnavailableException(String message) {
+        super(message);
+    }
+
+    public CurrencyServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
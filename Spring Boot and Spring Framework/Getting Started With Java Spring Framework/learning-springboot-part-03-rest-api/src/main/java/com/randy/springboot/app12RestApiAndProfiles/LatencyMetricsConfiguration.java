@@ -0,0 +1,43 @@
+package com.randy.springboot.app12RestApiAndProfiles;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Set;
+
+// Histogram buckets on http.server.requests for the endpoints we alert on, so Prometheus can compute p99 with
+// histogram_quantile across instances. Other URIs keep the plain count/sum/max timer, every bucket is one more series.
+// Items of /batch calls to those endpoints get the same buckets in http.server.batch.requests, see BatchController.
+@Configuration
+public class LatencyMetricsConfiguration {
+    private static final Set<String> HISTOGRAM_URIS = Set.of("/courses", "/currency-configuration");
+
+    @Bean
+    public MeterFilter latencyHistogramMeterFilter() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!id.getName().equals("http.server.requests") && !id.getName().equals(BatchController.ITEM_TIMER)
+                        || !HISTOGRAM_URIS.contains(id.getTag("uri"))) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentilesHistogram(true)
+                        .minimumExpectedValue((double) Duration.ofMillis(1).toNanos())
+                        .maximumExpectedValue((double) Duration.ofSeconds(5).toNanos())
+                        .serviceLevelObjectives(slo(Duration.ofMillis(10)), slo(Duration.ofMillis(50)),
+                                slo(Duration.ofMillis(100)), slo(Duration.ofMillis(250)), slo(Duration.ofSeconds(1)))
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+
+    private static double slo(Duration duration) {
+        return duration.toNanos();
+    }
+}
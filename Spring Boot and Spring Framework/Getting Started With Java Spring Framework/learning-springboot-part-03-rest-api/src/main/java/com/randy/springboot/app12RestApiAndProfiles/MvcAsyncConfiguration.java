@@ -0,0 +1,23 @@
+package com.randy.springboot.app12RestApiAndProfiles;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// A StreamingResponseBody (the NDJSON stream of /courses) holds its thread for as long as the client takes to read.
+// It runs on a virtual thread per stream instead of Boot's applicationTaskExecutor (8 threads, unbounded queue), so
+// slow consumers park instead of pinning every thread and queueing the streams behind them.
+// The async timeout is spring.mvc.async.request-timeout, see application.properties.
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class MvcAsyncConfiguration implements WebMvcConfigurer {
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("mvc-async-");
+        executor.setVirtualThreads(true);
+        configurer.setTaskExecutor(executor);
+    }
+}
@@ -0,0 +1,117 @@
+package com.randy.springboot.app12RestApiAndProfiles;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
+
+// WebFlux counterpart of CourseController, same parameters and responses. Nothing here blocks, every response is either
+// pre-encoded bytes from the snapshot or a Flux over it.
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCourseHandler {
+    private static final List<String> PAGE_PARAMETERS = List.of("limit", "cursor", "author", "name", "sort", "desc");
+
+    private final CourseCatalog catalog;
+
+    public ReactiveCourseHandler(CourseCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    // Each subscriber walks the snapshot that is current when it subscribes, without copying it
+    public Flux<Course> courses(String author, String name, CourseIndex.Sort sort, boolean descending) {
+        return Flux.defer(() -> Flux.fromIterable(
+                () -> catalog.getSnapshot().index().iterator(author, name, sort, descending)));
+    }
+
+    public Mono<ServerResponse> retrieveAllCourses(ServerRequest request) {
+        CourseCatalog.Snapshot snapshot = catalog.getSnapshot();
+        if (PAGE_PARAMETERS.stream().anyMatch(parameter -> request.queryParam(parameter).isPresent())) {
+            return retrievePage(snapshot, request);
+        }
+        String ifNoneMatch = request.headers().firstHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && ifNoneMatch.contains(snapshot.etag())) {
+            return ServerResponse.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.etag()).build();
+        }
+        MediaType encoding;
+        try {
+            encoding = CourseCatalog.preferredEncoding(request.headers().accept());
+        } catch (InvalidMediaTypeException ex) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex));
+        }
+        ServerResponse.BodyBuilder response = ServerResponse.ok()
+                .eTag(snapshot.etag())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(encoding);
+        if (!MediaType.APPLICATION_JSON.equals(encoding)) {
+            return response.bodyValue(snapshot.encoded(encoding));
+        }
+        String acceptEncoding = request.headers().firstHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").bodyValue(snapshot.gzipJson());
+        }
+        return response.bodyValue(snapshot.json());
+    }
+
+    // One course per line, WebFlux writes and flushes each element as the client's demand allows
+    public Mono<ServerResponse> streamAllCourses(ServerRequest request) {
+        Flux<Course> courses;
+        try {
+            courses = courses(request.queryParam("author").orElse(null), request.queryParam("name").orElse(null),
+                    sort(request), descending(request));
+        } catch (IllegalArgumentException ex) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex));
+        }
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_NDJSON).body(courses, Course.class);
+    }
+
+    // Explicitly asked for, a wildcard Accept keeps getting the JSON array.
+    // A malformed Accept header falls through to retrieveAllCourses, which answers 400 like CourseController.
+    public static boolean acceptsNdjson(ServerRequest request) {
+        try {
+            return request.headers().accept().stream()
+                    .anyMatch(type -> type.equalsTypeAndSubtype(MediaType.APPLICATION_NDJSON));
+        } catch (InvalidMediaTypeException ex) {
+            return false;
+        }
+    }
+
+    private Mono<ServerResponse> retrievePage(CourseCatalog.Snapshot snapshot, ServerRequest request) {
+        CourseIndex.Page page;
+        try {
+            int pageSize = request.queryParam("limit").map(Integer::valueOf).orElse(CourseController.DEFAULT_LIMIT);
+            if (pageSize < 1 || pageSize > CourseController.MAX_LIMIT) {
+                throw new IllegalArgumentException("limit must be between 1 and " + CourseController.MAX_LIMIT);
+            }
+            page = snapshot.index().query(request.queryParam("author").orElse(null),
+                    request.queryParam("name").orElse(null), sort(request), descending(request),
+                    request.queryParam("cursor").orElse(null), pageSize);
+        } catch (IllegalArgumentException ex) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex));
+        }
+        ServerResponse.BodyBuilder response = ServerResponse.ok();
+        if (page.nextCursor() != null) {
+            response.header(CourseController.NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.bodyValue(page.courses());
+    }
+
+    private static CourseIndex.Sort sort(ServerRequest request) {
+        Optional<String> sort = request.queryParam("sort");
+        return sort.isEmpty() ? CourseIndex.Sort.ID : CourseIndex.Sort.valueOf(sort.get().toUpperCase());
+    }
+
+    private static boolean descending(ServerRequest request) {
+        return request.queryParam("desc").map(Boolean::parseBoolean).orElse(false);
+    }
+}
@@ -0,0 +1,51 @@
+package com.randy.springboot.app12RestApiAndProfiles;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+// The reactive profile's routes, the same URLs as the MVC controllers which are not registered in a reactive
+// application
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveRoutesConfiguration {
+
+    // Boot picks Tomcat over Netty for a reactive application when both are on the classpath, and Tomcat is needed by
+    // the MVC mode
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory(
+            ObjectProvider<NettyServerCustomizer> serverCustomizers) {
+        NettyReactiveWebServerFactory factory = new NettyReactiveWebServerFactory();
+        factory.getServerCustomizers().addAll(serverCustomizers.orderedStream().toList());
+        return factory;
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> reactiveRoutes(ReactiveCourseHandler courses,
+                                                         CurrencyServiceConfigurationHolder configuration,
+                                                         CurrencyServiceClient client) {
+        return RouterFunctions.route()
+                .GET("/courses", ReactiveCourseHandler::acceptsNdjson, courses::streamAllCourses)
+                .GET("/courses", courses::retrieveAllCourses)
+                .GET("/currency-configuration", request -> ServerResponse.ok().bodyValue(configuration.get()))
+                // getRate blocks while it waits for the currency service, keep that off the event loop
+                .GET("/currency-rate/from/{from}/to/{to}", request -> Mono
+                        .fromCallable(() -> client.getRate(request.pathVariable("from").toUpperCase(),
+                                request.pathVariable("to").toUpperCase()))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .onErrorMap(IllegalArgumentException.class,
+                                ex -> new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex))
+                        .flatMap(rate -> ServerResponse.ok().bodyValue(rate)))
+                .build();
+    }
+}
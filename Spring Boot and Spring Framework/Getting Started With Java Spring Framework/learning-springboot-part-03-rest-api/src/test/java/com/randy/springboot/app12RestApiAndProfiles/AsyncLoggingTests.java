@@ -0,0 +1,33 @@
+package com.randy.springboot.app12RestApiAndProfiles;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.ConsoleAppender;
+import org.apache.logging.log4j.core.async.AsyncLoggerContext;
+import org.apache.logging.log4j.core.async.AsyncQueueFullPolicyFactory;
+import org.apache.logging.log4j.core.async.DiscardingAsyncQueueFullPolicy;
+import org.apache.logging.log4j.util.Constants;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class AsyncLoggingTests {
+
+    @Test
+    void logsAsynchronouslyWithoutGarbage() {
+        LoggerContext context = (LoggerContext) LogManager.getContext(false);
+
+        assertThat(context).isInstanceOf(AsyncLoggerContext.class);
+        assertThat(context.getConfiguration().getConfigurationSource().getLocation()).endsWith("log4j2-spring.xml");
+        assertThat(AsyncQueueFullPolicyFactory.create()).isInstanceOf(DiscardingAsyncQueueFullPolicy.class);
+        assertThat(Constants.ENABLE_THREADLOCALS).isTrue();
+        assertThat(Constants.IS_WEB_APP).isFalse();
+        assertThat(org.apache.logging.log4j.core.util.Constants.ENABLE_DIRECT_ENCODERS).isTrue();
+
+        // prod is the active profile
+        ConsoleAppender console = context.getConfiguration().getAppender("Console");
+        assertThat(console.getManager().getName()).isEqualTo("SYSTEM_OUT.false.true");
+    }
+}
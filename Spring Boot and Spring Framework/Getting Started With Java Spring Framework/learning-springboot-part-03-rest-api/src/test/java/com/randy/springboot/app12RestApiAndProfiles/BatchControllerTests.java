@@ -0,0 +1,94 @@
+package com.randy.springboot.app12RestApiAndProfiles;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BatchControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CourseCatalog catalog;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void answersEveryItemInOrderWithItsOwnStatus() throws Exception {
+        String batch = """
+                [
+                  {"id": "catalog", "path": "/courses"},
+                  {"id": "page", "path": "/courses?author=Randy%20Huynh&name=Learn%20Java&limit=2"},
+                  {"id": "configuration", "path": "/currency-configuration"},
+                  {"id": "bad-limit", "path": "/courses?limit=zero"},
+                  {"id": "missing", "path": "/nothing-here"},
+                  {"id": "write", "method": "DELETE", "path": "/courses"}
+                ]
+                """;
+
+        String body = mockMvc.perform(post("/batch").contentType(MediaType.APPLICATION_JSON).content(batch))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode responses = objectMapper.readTree(body);
+
+        assertThat(responses).extracting(response -> response.get("id").asText())
+                .containsExactly("catalog", "page", "configuration", "bad-limit", "missing", "write");
+        assertThat(responses).extracting(response -> response.get("status").asInt())
+                .containsExactly(200, 200, 200, 400, 404, 405);
+
+        assertThat(objectMapper.writeValueAsBytes(responses.get(0).get("body")))
+                .isEqualTo(objectMapper.writeValueAsBytes(objectMapper.readTree(catalog.getSnapshot().json())));
+        assertThat(responses.get(0).get("headers").get("ETag").asText()).isEqualTo(catalog.getSnapshot().etag());
+        assertThat(responses.get(1).get("body")).extracting(course -> course.get("id").asLong()).containsExactly(4L, 5L);
+        assertThat(responses.get(1).get("headers").has(CourseController.NEXT_CURSOR_HEADER)).isTrue();
+        assertThat(responses.get(2).get("body").get("url").asText()).isEqualTo("http://prod.randy-huynh.com");
+        assertThat(responses.get(3).get("body").get("error").asText()).contains("zero");
+    }
+
+    @Test
+    void rejectsOversizedBatches() throws Exception {
+        String batch = objectMapper.writeValueAsString(IntStream.rangeClosed(0, BatchController.MAX_BATCH_SIZE)
+                .mapToObj(i -> new BatchController.BatchRequest(String.valueOf(i), "GET", "/courses"))
+                .toList());
+
+        mockMvc.perform(post("/batch").contentType(MediaType.APPLICATION_JSON).content(batch))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void answersNullItemsWith400AndTimesEveryItem() throws Exception {
+        String batch = """
+                [{"id": "catalog", "path": "/courses"}, null]
+                """;
+
+        String body = mockMvc.perform(post("/batch").contentType(MediaType.APPLICATION_JSON).content(batch))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode responses = objectMapper.readTree(body);
+
+        assertThat(responses).extracting(response -> response.get("status").asInt()).containsExactly(200, 400);
+        assertThat(meterRegistry.get(BatchController.ITEM_TIMER).tags("uri", "/courses", "status", "200").timer().count())
+                .isPositive();
+        assertThat(meterRegistry.get(BatchController.ITEM_TIMER).tags("uri", "UNKNOWN", "status", "400").timer().count())
+                .isPositive();
+    }
+}
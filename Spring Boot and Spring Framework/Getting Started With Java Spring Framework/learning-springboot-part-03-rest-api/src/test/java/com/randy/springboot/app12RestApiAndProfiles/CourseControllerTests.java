@@ -0,0 +1,178 @@
+package com.randy.springboot.app12RestApiAndProfiles;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class CourseControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CourseCatalog catalog;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileConverter;
+
+    @Test
+    void servesThePreEncodedCatalog() throws Exception {
+        byte[] expected = objectMapper.writeValueAsBytes(catalog.getSnapshot().courses());
+
+        MvcResult identity = mockMvc.perform(get("/courses")).andExpect(status().isOk()).andReturn();
+        MvcResult gzip = mockMvc.perform(get("/courses").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn();
+
+        assertThat(identity.getResponse().getContentAsByteArray()).isEqualTo(expected);
+        assertThat(identity.getResponse().getContentAsString()).contains("\"author\":\"Randy Huynh\"");
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip.getResponse().getContentAsByteArray()))) {
+            assertThat(in.readAllBytes()).isEqualTo(expected);
+        }
+
+        String etag = identity.getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/courses").header(HttpHeaders.IF_NONE_MATCH, etag)).andExpect(status().isNotModified());
+    }
+
+    @Test
+    void replacingTheCatalogRebuildsTheSnapshot() throws Exception {
+        List<Course> courses = catalog.getSnapshot().courses();
+        String etag = catalog.getSnapshot().etag();
+        try {
+            catalog.replace(List.of(new Course(9, "Learn Caching", "Randy Huynh")));
+
+            assertThat(catalog.getSnapshot().etag()).isNotEqualTo(etag);
+            assertThat(mockMvc.perform(get("/courses")).andReturn().getResponse().getContentAsString())
+                    .contains("Learn Caching").doesNotContain("Learn AWS");
+        } finally {
+            catalog.replace(courses);
+        }
+    }
+
+    @Test
+    void pagesThroughFilteredAndSortedCourses() throws Exception {
+        List<Course> courses = catalog.getSnapshot().courses();
+        List<Course> generated = IntStream.rangeClosed(1, 120)
+                .mapToObj(id -> new Course(id, "Course " + (char) ('a' + id % 26), id % 3 == 0 ? "Author A" : "Author B"))
+                .toList();
+        try {
+            catalog.replace(generated);
+
+            List<Long> expected = generated.stream()
+                    .filter(course -> course.getAuthor().equals("Author A"))
+                    .sorted(Comparator.comparing(Course::getName).thenComparingLong(Course::getId).reversed())
+                    .map(Course::getId)
+                    .toList();
+            List<Long> paged = new ArrayList<>();
+            String cursor = null;
+            do {
+                var request = get("/courses").param("author", "Author A").param("sort", "name").param("desc", "true")
+                        .param("limit", "7");
+                MvcResult result = mockMvc.perform(cursor == null ? request : request.param("cursor", cursor))
+                        .andExpect(status().isOk()).andReturn();
+                Course[] page = objectMapper.readValue(result.getResponse().getContentAsByteArray(), Course[].class);
+                assertThat(page).hasSizeLessThanOrEqualTo(7);
+                Arrays.stream(page).map(Course::getId).forEach(paged::add);
+                cursor = result.getResponse().getHeader(CourseController.NEXT_CURSOR_HEADER);
+            } while (cursor != null);
+            assertThat(paged).isEqualTo(expected);
+
+            assertThat(mockMvc.perform(get("/courses").param("name", "Course c").param("limit", "2"))
+                    .andReturn().getResponse().getContentAsString()).contains("\"id\":2,").contains("\"id\":28,");
+            mockMvc.perform(get("/courses").param("limit", "0")).andExpect(status().isBadRequest());
+            mockMvc.perform(get("/courses").param("sort", "author")).andExpect(status().isBadRequest());
+            mockMvc.perform(get("/courses").param("cursor", "not a cursor")).andExpect(status().isBadRequest());
+        } finally {
+            catalog.replace(courses);
+        }
+    }
+
+    @Test
+    void streamsNdjsonWhenAsked() throws Exception {
+        MvcResult started = mockMvc.perform(get("/courses").accept(CourseController.NDJSON).param("sort", "name"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(started.getRequest().getAsyncContext().getTimeout()).isEqualTo(-1);
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, CourseController.NDJSON))
+                .andReturn();
+
+        List<String> lines = result.getResponse().getContentAsString().lines().toList();
+        assertThat(lines).hasSize(catalog.getSnapshot().courses().size());
+        assertThat(lines).allSatisfy(line -> assertThat(line).startsWith("{\"id\":").endsWith("}"));
+        assertThat(objectMapper.readValue(lines.get(0), Course.class).getName()).isEqualTo("Learn AWS");
+        assertThat(result.getResponse().getContentAsString()).endsWith("}\n");
+    }
+
+    @Test
+    void servesCborAndSmileWhenAsked() throws Exception {
+        ObjectMapper cbor = cborConverter.getObjectMapper();
+        ObjectMapper smile = smileConverter.getObjectMapper();
+
+        MvcResult cborCatalog = mockMvc.perform(get("/courses").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_CBOR_VALUE))
+                .andReturn();
+        MvcResult smileCatalog = mockMvc.perform(get("/courses")
+                        .header(HttpHeaders.ACCEPT, "application/json;q=0.5, application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/x-jackson-smile"))
+                .andReturn();
+        MvcResult cborPage = mockMvc.perform(get("/courses").param("limit", "3").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_CBOR_VALUE))
+                .andReturn();
+
+        byte[] json = catalog.getSnapshot().json();
+        assertThat(cborCatalog.getResponse().getContentAsByteArray()).hasSizeLessThan(json.length);
+        assertThat(cbor.readValue(cborCatalog.getResponse().getContentAsByteArray(), Course[].class))
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(catalog.getSnapshot().courses());
+        assertThat(smile.readValue(smileCatalog.getResponse().getContentAsByteArray(), Course[].class))
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(catalog.getSnapshot().courses());
+        assertThat(cbor.readValue(cborPage.getResponse().getContentAsByteArray(), Course[].class))
+                .extracting(Course::getId).containsExactly(1L, 2L, 3L);
+        assertThat(mockMvc.perform(get("/courses")).andReturn().getResponse().getContentAsByteArray()).isEqualTo(json);
+
+        MvcResult configuration = mockMvc.perform(get("/currency-configuration").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_CBOR_VALUE))
+                .andReturn();
+        assertThat(cbor.readTree(configuration.getResponse().getContentAsByteArray()).get("url").asText())
+                .startsWith("http");
+    }
+}
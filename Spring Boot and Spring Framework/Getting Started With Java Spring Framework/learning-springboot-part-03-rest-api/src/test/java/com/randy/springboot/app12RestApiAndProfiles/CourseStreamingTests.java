@@ -0,0 +1,79 @@
+package com.randy.springboot.app12RestApiAndProfiles;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Over a real connection: MockMvc buffers the whole response, so it cannot have a client that stops reading
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class CourseStreamingTests {
+    private static final int COURSES = 150_000;
+    // More than the 8 threads of Boot's applicationTaskExecutor
+    private static final int SLOW_READERS = 12;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CourseCatalog catalog;
+
+    @Test
+    void slowReadersDoNotHoldUpOtherStreams() throws Exception {
+        List<Course> courses = catalog.getSnapshot().courses();
+        List<Socket> slowReaders = new ArrayList<>();
+        try {
+            catalog.replace(IntStream.rangeClosed(1, COURSES)
+                    .mapToObj(id -> new Course(id, "Course " + id, "Randy Huynh")).toList());
+            for (int i = 0; i < SLOW_READERS; i++) {
+                slowReaders.add(startSlowReader());
+            }
+
+            try (HttpClient client = HttpClient.newHttpClient()) {
+                HttpResponse<Stream<String>> response = client.send(
+                        HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/courses"))
+                                .header("Accept", CourseController.NDJSON)
+                                .timeout(Duration.ofSeconds(10))
+                                .build(),
+                        HttpResponse.BodyHandlers.ofLines());
+
+                assertThat(response.statusCode()).isEqualTo(200);
+                assertThat(response.body().count()).isEqualTo(COURSES);
+            }
+        } finally {
+            for (Socket slowReader : slowReaders) {
+                slowReader.close();
+            }
+            catalog.replace(courses);
+        }
+    }
+
+    // Reads the start of the stream and then nothing, with a small receive buffer the server's writes soon block
+    private Socket startSlowReader() throws Exception {
+        Socket socket = new Socket();
+        socket.setReceiveBufferSize(1024);
+        socket.connect(new InetSocketAddress("localhost", port));
+        socket.getOutputStream().write(("GET /courses HTTP/1.1\r\nHost: localhost\r\nAccept: " + CourseController.NDJSON
+                + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        InputStream in = socket.getInputStream();
+        byte[] start = new byte[256];
+        assertThat(in.readNBytes(start, 0, start.length)).isEqualTo(start.length);
+        return socket;
+    }
+}
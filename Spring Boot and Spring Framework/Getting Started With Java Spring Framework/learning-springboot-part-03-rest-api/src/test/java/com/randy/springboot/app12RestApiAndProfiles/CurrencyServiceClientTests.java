@@ -0,0 +1,189 @@
+package com.randy.springboot.app12RestApiAndProfiles;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+// The currency service is a local stub, its status and delay are changed by the tests
+class CurrencyServiceClientTests {
+
+    private final AtomicInteger status = new AtomicInteger(200);
+    private final AtomicLong delayMillis = new AtomicLong();
+    private final AtomicReference<String> authorization = new AtomicReference<>();
+    private HttpServer server;
+    private final AtomicReference<CurrencyServiceConfiguration> configuration = new AtomicReference<>();
+    private CurrencyServiceClientProperties properties;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/currency-exchange/from/", exchange -> {
+            authorization.set(exchange.getRequestHeaders().getFirst("Authorization"));
+            try {
+                Thread.sleep(delayMillis.get());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            byte[] body = ("{\"id\":10001,\"from\":\"" + path[3] + "\",\"to\":\"" + path[5]
+                    + "\",\"conversionMultiple\":83.25,\"environment\":\"stub\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status.get(), body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+
+        configuration.set(new CurrencyServiceConfiguration("http://localhost:" + server.getAddress().getPort(),
+                "stubuser", "stubkey"));
+        properties = new CurrencyServiceClientProperties();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    void cachesRatesAndCoalescesConcurrentLookups() throws Exception {
+        delayMillis.set(200);
+        try (CurrencyServiceClient client = new CurrencyServiceClient(configuration::get, properties, new ObjectMapper());
+             ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<CurrencyRate>> rates = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                rates.add(callers.submit(() -> client.getRate("USD", "INR")));
+            }
+            for (Future<CurrencyRate> rate : rates) {
+                assertThat(rate.get()).isEqualTo(new CurrencyRate("USD", "INR", new BigDecimal("83.25")));
+            }
+            assertThat(client.getCalls()).isEqualTo(1);
+
+            client.getRate("USD", "INR");
+            assertThat(client.getCalls()).isEqualTo(1);
+            client.getRate("EUR", "INR");
+            assertThat(client.getCalls()).isEqualTo(2);
+            assertThat(authorization.get()).isEqualTo("Basic "
+                    + Base64.getEncoder().encodeToString("stubuser:stubkey".getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    @Test
+    void opensTheCircuitAndFallsBackToStaleRates() {
+        properties.setCacheTtlMillis(0);
+        properties.setFailureThreshold(2);
+        properties.setOpenMillis(60000);
+        try (CurrencyServiceClient client = new CurrencyServiceClient(configuration::get, properties, new ObjectMapper())) {
+            CurrencyRate rate = client.getRate("USD", "INR");
+
+            status.set(500);
+            assertThat(client.getRate("USD", "INR")).isEqualTo(rate);
+            assertThat(client.getRate("USD", "INR")).isEqualTo(rate);
+            assertThat(client.getCalls()).isEqualTo(3);
+            assertThat(client.getCircuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+            // Open: nothing reaches the service, pairs without a stale rate fail fast
+            assertThat(client.getRate("USD", "INR")).isEqualTo(rate);
+            assertThatThrownBy(() -> client.getRate("EUR", "INR"))
+                    .isInstanceOf(CurrencyServiceUnavailableException.class)
+                    .hasMessageContaining("Circuit open");
+            assertThat(client.getCalls()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    void trialCallClosesTheCircuitAgain() throws InterruptedException {
+        properties.setFailureThreshold(1);
+        properties.setOpenMillis(100);
+        try (CurrencyServiceClient client = new CurrencyServiceClient(configuration::get, properties, new ObjectMapper())) {
+            status.set(503);
+            assertThatThrownBy(() -> client.getRate("USD", "INR")).isInstanceOf(CurrencyServiceUnavailableException.class);
+            assertThat(client.getCircuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+            status.set(200);
+            Thread.sleep(150);
+            assertThat(client.getRate("USD", "INR").conversionMultiple()).isEqualByComparingTo("83.25");
+            assertThat(client.getCircuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        }
+    }
+
+    @Test
+    void slowServiceTimesOut() {
+        properties.setRequestTimeoutMillis(200);
+        delayMillis.set(3000);
+        try (CurrencyServiceClient client = new CurrencyServiceClient(configuration::get, properties, new ObjectMapper())) {
+            long start = System.nanoTime();
+            assertThatThrownBy(() -> client.getRate("USD", "INR"))
+                    .isInstanceOf(CurrencyServiceUnavailableException.class);
+            assertThat(System.nanoTime() - start).isLessThan(2_000_000_000L);
+        }
+    }
+
+    @Test
+    void rejectsMalformedCurrencyCodes() {
+        try (CurrencyServiceClient client = new CurrencyServiceClient(configuration::get, properties, new ObjectMapper())) {
+            assertThatThrownBy(() -> client.getRate("USD", "../x")).isInstanceOf(IllegalArgumentException.class);
+            assertThat(client.getCalls()).isZero();
+        }
+    }
+
+    @Test
+    void usesTheCurrentConfigurationForEveryCall() {
+        properties.setCacheTtlMillis(0);
+        try (CurrencyServiceClient client = new CurrencyServiceClient(configuration::get, properties, new ObjectMapper())) {
+            client.getRate("USD", "INR");
+            configuration.set(new CurrencyServiceConfiguration(configuration.get().url(), "stubuser", "rotatedkey"));
+            client.getRate("USD", "INR");
+
+            assertThat(authorization.get()).isEqualTo("Basic "
+                    + Base64.getEncoder().encodeToString("stubuser:rotatedkey".getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    @Test
+    void malformedUrlFailsEveryCallWithoutHanging() throws InterruptedException {
+        properties.setFailureThreshold(1);
+        properties.setOpenMillis(100);
+        configuration.set(new CurrencyServiceConfiguration("not a url", "stubuser", "stubkey"));
+        try (CurrencyServiceClient client = new CurrencyServiceClient(configuration::get, properties, new ObjectMapper())) {
+            assertThatThrownBy(() -> client.getRate("USD", "INR"))
+                    .isInstanceOf(CurrencyServiceUnavailableException.class)
+                    .hasMessageContaining("Invalid currency service url");
+            assertTimeoutPreemptively(Duration.ofSeconds(2), () -> assertThatThrownBy(() -> client.getRate("USD", "INR"))
+                    .isInstanceOf(CurrencyServiceUnavailableException.class));
+            assertThat(client.getCircuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+            // The trial call after the open period fails on the url too, it must not leave the circuit half open
+            Thread.sleep(150);
+            assertThatThrownBy(() -> client.getRate("USD", "INR")).isInstanceOf(CurrencyServiceUnavailableException.class);
+            assertThat(client.getCircuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+            configuration.set(new CurrencyServiceConfiguration("http://localhost:" + server.getAddress().getPort(),
+                    "stubuser", "stubkey"));
+            Thread.sleep(150);
+            assertThat(client.getRate("USD", "INR").conversionMultiple()).isEqualByComparingTo("83.25");
+            assertThat(client.getCircuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.randy.springboot.app12RestApiAndProfiles;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// An external, optional config location stands in for a mounted secret whose key gets rotated
+@SpringBootTest(properties = "spring.config.additional-location=optional:file:target/currency-refresh-test/")
+@AutoConfigureMockMvc
+class CurrencyServiceConfigurationRefreshTests {
+    private static final Path OVERRIDE = Path.of("target/currency-refresh-test/application-prod.properties");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CurrencyServiceConfigurationHolder holder;
+
+    @AfterEach
+    void removeOverride() throws Exception {
+        Files.deleteIfExists(OVERRIDE);
+        holder.refresh();
+    }
+
+    @Test
+    void refreshPublishesTheRotatedKey() throws Exception {
+        CurrencyServiceConfiguration before = holder.get();
+        assertThat(before.key()).isEqualTo("prodkey");
+
+        Files.createDirectories(OVERRIDE.getParent());
+        Files.writeString(OVERRIDE, "currency-service.key=rotatedkey\n");
+        assertThat(holder.get()).isSameAs(before);
+
+        mockMvc.perform(post("/actuator/currencyconfig"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.url").value("http://prod.randy-huynh.com"))
+                .andExpect(jsonPath("$.key").value("******"));
+
+        assertThat(holder.get()).isEqualTo(new CurrencyServiceConfiguration("http://prod.randy-huynh.com",
+                "produsername", "rotatedkey"));
+        mockMvc.perform(get("/currency-configuration")).andExpect(jsonPath("$.key").value("rotatedkey"));
+    }
+
+    @Test
+    void failedRefreshKeepsThePublishedSnapshot() throws Exception {
+        CurrencyServiceConfiguration before = holder.get();
+
+        Files.createDirectories(OVERRIDE.getParent());
+        Files.writeString(OVERRIDE, "currency-service.url=\n");
+
+        assertThatThrownBy(() -> mockMvc.perform(post("/actuator/currencyconfig")))
+                .hasRootCauseMessage("currency-service.url must be set");
+        assertThat(holder.get()).isSameAs(before);
+    }
+
+    @Test
+    void refreshRejectsAnInvalidUrl() throws Exception {
+        CurrencyServiceConfiguration before = holder.get();
+        Files.createDirectories(OVERRIDE.getParent());
+
+        for (String url : new String[]{"not a url", "prod.randy-huynh.com", "ftp://prod.randy-huynh.com"}) {
+            Files.writeString(OVERRIDE, "currency-service.url=" + url + "\n");
+
+            assertThatThrownBy(() -> mockMvc.perform(post("/actuator/currencyconfig")))
+                    .hasStackTraceContaining("currency-service.url must be an absolute http or https url");
+            assertThat(holder.get()).isSameAs(before);
+        }
+    }
+}
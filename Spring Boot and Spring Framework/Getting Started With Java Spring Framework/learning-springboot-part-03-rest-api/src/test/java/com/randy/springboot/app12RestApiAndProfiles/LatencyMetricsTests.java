@@ -0,0 +1,46 @@
+package com.randy.springboot.app12RestApiAndProfiles;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class LatencyMetricsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void scrapesHistogramsForTheAlertedEndpointsOnly() throws Exception {
+        mockMvc.perform(get("/courses")).andExpect(status().isOk());
+        mockMvc.perform(get("/currency-configuration")).andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+        mockMvc.perform(post("/batch").contentType(MediaType.APPLICATION_JSON).content("[{\"id\": \"a\", \"path\": \"/courses\"}]"))
+                .andExpect(status().isOk());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(scrape)
+                .containsPattern("http_server_requests_seconds_bucket\\{[^}]*uri=\"/courses\"[^}]*le=\"0\\.05\"")
+                .containsPattern("http_server_requests_seconds_bucket\\{[^}]*uri=\"/currency-configuration\"[^}]*le=\"0\\.25\"")
+                .doesNotContainPattern("http_server_requests_seconds_bucket\\{[^}]*uri=\"/actuator/health\"")
+                .containsPattern("http_server_requests_seconds_count\\{[^}]*uri=\"/actuator/health\"")
+                .containsPattern("http_server_batch_requests_seconds_bucket\\{[^}]*uri=\"/courses\"[^}]*le=\"0\\.05\"")
+                .contains("application=\"learning-springboot-part-03-rest-api\"")
+                .contains("jvm_gc_memory_allocated_bytes_total", "jvm_gc_overhead_percent",
+                        "jvm_threads_live_threads");
+    }
+}
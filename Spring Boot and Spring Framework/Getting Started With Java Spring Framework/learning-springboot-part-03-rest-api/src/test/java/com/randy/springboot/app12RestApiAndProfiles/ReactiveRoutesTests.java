@@ -0,0 +1,85 @@
+package com.randy.springboot.app12RestApiAndProfiles;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.netty.NettyWebServer;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.main.web-application-type=reactive")
+class ReactiveRoutesTests {
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private CourseCatalog catalog;
+
+    @Autowired
+    private ReactiveCourseHandler handler;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void servesCoursesFromNettyWithoutTheMvcControllers() {
+        assertThat(context).isInstanceOf(ReactiveWebServerApplicationContext.class);
+        assertThat(((ReactiveWebServerApplicationContext) context).getWebServer()).isInstanceOf(NettyWebServer.class);
+        assertThat(context.getBeansOfType(CourseController.class)).isEmpty();
+
+        client.get().uri("/courses").exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, catalog.getSnapshot().etag())
+                .expectBody(byte[].class).isEqualTo(catalog.getSnapshot().json());
+        client.get().uri("/courses").header(HttpHeaders.IF_NONE_MATCH, catalog.getSnapshot().etag()).exchange()
+                .expectStatus().isNotModified();
+        client.get().uri("/courses").accept(MediaType.APPLICATION_CBOR).exchange()
+                .expectHeader().contentType(MediaType.APPLICATION_CBOR)
+                .expectBody(byte[].class).isEqualTo(catalog.getSnapshot().cbor());
+        client.get().uri("/currency-configuration").exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.url").isEqualTo("http://prod.randy-huynh.com");
+    }
+
+    @Test
+    void pagesAndStreamsLikeTheMvcVersion() throws Exception {
+        client.get().uri("/courses?sort=name&limit=3").exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(CourseController.NEXT_CURSOR_HEADER)
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(3)
+                .jsonPath("$[0].id").isEqualTo(1)
+                .jsonPath("$[1].id").isEqualTo(3)
+                .jsonPath("$[2].id").isEqualTo(2);
+        client.get().uri("/courses?limit=0").exchange().expectStatus().isBadRequest();
+        client.get().uri("/courses").header(HttpHeaders.ACCEPT, "not/a/type").exchange().expectStatus().isBadRequest();
+        client.get().uri("/courses?sort=author").accept(MediaType.APPLICATION_NDJSON).exchange()
+                .expectStatus().isBadRequest();
+
+        String ndjson = client.get().uri("/courses?desc=true").accept(MediaType.APPLICATION_NDJSON).exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class).returnResult().getResponseBody();
+        List<String> lines = ndjson.lines().toList();
+        assertThat(lines).hasSize(catalog.getSnapshot().courses().size());
+        assertThat(objectMapper.readValue(lines.get(0), Course.class).getId()).isEqualTo(8);
+
+        StepVerifier.create(handler.courses("Randy Huynh", "Learn Java", CourseIndex.Sort.ID, false).map(Course::getId))
+                .expectNext(4L, 5L, 6L, 7L, 8L)
+                .verifyComplete();
+    }
+}
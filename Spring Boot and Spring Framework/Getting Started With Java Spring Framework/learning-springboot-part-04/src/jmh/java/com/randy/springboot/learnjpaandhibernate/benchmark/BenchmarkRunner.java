@@ -0,0 +1,23 @@
+package com.randy.springboot.learnjpaandhibernate.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Runs the JMH command line once per thread count in -Dbenchmark.threads, results go to target/jmh-<threads>-threads.json
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        for (String threads : System.getProperty("benchmark.threads", "1").split(",")) {
+            int threadCount = Integer.parseInt(threads.trim());
+            new Runner(new OptionsBuilder()
+                    .parent(commandLine)
+                    .threads(threadCount)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("target/jmh-" + threadCount + "-threads.json")
+                    .build()).run();
+        }
+    }
+}
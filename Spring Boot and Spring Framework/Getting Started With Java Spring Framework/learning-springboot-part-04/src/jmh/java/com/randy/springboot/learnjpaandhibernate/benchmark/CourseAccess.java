@@ -0,0 +1,68 @@
+package com.randy.springboot.learnjpaandhibernate.benchmark;
+
+import com.randy.springboot.learnjpaandhibernate.course.Course;
+import com.randy.springboot.learnjpaandhibernate.course.jdbc.CourseJdbcRepository;
+import com.randy.springboot.learnjpaandhibernate.course.jpa.CourseJpaRepository;
+import com.randy.springboot.learnjpaandhibernate.course.springdatajpa.CourseSpringDataJpaRepository;
+import org.springframework.context.ApplicationContext;
+
+import java.util.List;
+
+// The same operations on top of each repository, so one benchmark method covers all three
+interface CourseAccess {
+
+    void insert(Course course);
+
+    Course findById(long id);
+
+    List<Course> findByAuthor(String author);
+
+    void deleteById(long id);
+
+    void upsertAll(List<Course> courses);
+
+    void deleteAllById(List<Long> ids);
+
+    static CourseAccess forRepository(String repository, ApplicationContext context) {
+        return switch (repository) {
+            case "jdbc" -> jdbc(context.getBean(CourseJdbcRepository.class));
+            case "jpa" -> jpa(context.getBean(CourseJpaRepository.class));
+            case "springdatajpa" -> springDataJpa(context.getBean(CourseSpringDataJpaRepository.class));
+            default -> throw new IllegalArgumentException("Unknown repository " + repository);
+        };
+    }
+
+    private static CourseAccess jdbc(CourseJdbcRepository repository) {
+        return new CourseAccess() {
+            public void insert(Course course) { repository.insert(course); }
+            public Course findById(long id) { return repository.findById(id); }
+            public List<Course> findByAuthor(String author) { return repository.findByAuthor(author); }
+            public void deleteById(long id) { repository.deleteById(id); }
+            public void upsertAll(List<Course> courses) { repository.upsertAll(courses); }
+            public void deleteAllById(List<Long> ids) { repository.deleteAllById(ids); }
+        };
+    }
+
+    private static CourseAccess jpa(CourseJpaRepository repository) {
+        return new CourseAccess() {
+            public void insert(Course course) { repository.insert(course); }
+            public Course findById(long id) { return repository.findById(id); }
+            public List<Course> findByAuthor(String author) { return repository.findByAuthor(author); }
+            public void deleteById(long id) { repository.deleteById(id); }
+            public void upsertAll(List<Course> courses) { repository.upsertAll(courses); }
+            public void deleteAllById(List<Long> ids) { repository.deleteAllById(ids); }
+        };
+    }
+
+    // save() with an assigned id is a merge (SELECT then INSERT), which is what callers of this repository pay
+    private static CourseAccess springDataJpa(CourseSpringDataJpaRepository repository) {
+        return new CourseAccess() {
+            public void insert(Course course) { repository.save(course); }
+            public Course findById(long id) { return repository.findById(id).orElse(null); }
+            public List<Course> findByAuthor(String author) { return repository.findByAuthor(author); }
+            public void deleteById(long id) { repository.deleteByIdInBulk(id); }
+            public void upsertAll(List<Course> courses) { repository.saveAll(courses); }
+            public void deleteAllById(List<Long> ids) { repository.deleteAllByIdInBulk(ids); }
+        };
+    }
+}
@@ -0,0 +1,118 @@
+package com.randy.springboot.learnjpaandhibernate.benchmark;
+
+import com.randy.springboot.learnjpaandhibernate.LearnJpaAndHibernateApplication;
+import com.randy.springboot.learnjpaandhibernate.course.Course;
+import com.randy.springboot.learnjpaandhibernate.course.jdbc.CourseJdbcRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.ManagedEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Flush cost of a persistence context holding managedEntities courses of which 1% were changed.
+// Compare a normal build with one where bytecode enhancement is off:
+//   mvn -Pbenchmark clean test-compile exec:exec -Dbenchmark.threads=1 -Djmh.args=CourseFlushBenchmark
+//   mvn -Pbenchmark clean test-compile exec:exec -Dbenchmark.threads=1 -Djmh.args=CourseFlushBenchmark -Dhibernate.enhance.phase=none
+// The trial setup also prints the heap retained per managed course (entity, entity entry and, without enhancement, the
+// loaded state snapshot).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(1)
+public class CourseFlushBenchmark {
+
+    @Param({"10000", "50000"})
+    public int managedEntities;
+
+    private ConfigurableApplicationContext context;
+    private EntityManagerFactory entityManagerFactory;
+    private EntityManager entityManager;
+    private int round;
+
+    @Setup(Level.Trial)
+    public void boot() {
+        context = new SpringApplicationBuilder(LearnJpaAndHibernateApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:flush-benchmark",
+                        "course.jdbc.instrumentation.enabled=false",
+                        "logging.level.root=warn")
+                .run();
+        List<Course> courses = new ArrayList<>(managedEntities);
+        for (long id = 1; id <= managedEntities; id++) {
+            courses.add(new Course(id, "Course " + id, "Author " + id % 100));
+        }
+        context.getBean(CourseJdbcRepository.class).upsertAll(courses);
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+        printRetainedBytesPerEntity();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        context.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void loadAndChange() {
+        entityManager = entityManagerFactory.createEntityManager();
+        entityManager.getTransaction().begin();
+        List<Course> courses = load(entityManager);
+        round++;
+        for (int i = 0; i < courses.size(); i += 100) {
+            courses.get(i).setName("Course " + courses.get(i).getId() + " v" + round);
+        }
+    }
+
+    @Benchmark
+    public void flush() {
+        entityManager.flush();
+    }
+
+    @TearDown(Level.Invocation)
+    public void rollback() {
+        entityManager.getTransaction().rollback();
+        entityManager.close();
+    }
+
+    private List<Course> load(EntityManager entityManager) {
+        return entityManager.createQuery("select c from Course c", Course.class).getResultList();
+    }
+
+    private void printRetainedBytesPerEntity() {
+        EntityManager measured = entityManagerFactory.createEntityManager();
+        long before = usedHeapAfterGc();
+        List<Course> courses = load(measured);
+        long after = usedHeapAfterGc();
+        System.out.printf("%n%s: %d bytes retained per managed Course (%d courses, bytecode enhanced: %s)%n",
+                getClass().getSimpleName(), (after - before) / courses.size(), courses.size(),
+                courses.get(0) instanceof ManagedEntity);
+        measured.close();
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
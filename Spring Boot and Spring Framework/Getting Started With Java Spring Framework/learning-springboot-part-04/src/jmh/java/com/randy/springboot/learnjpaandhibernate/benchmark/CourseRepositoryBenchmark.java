@@ -0,0 +1,56 @@
+package com.randy.springboot.learnjpaandhibernate.benchmark;
+
+import com.randy.springboot.learnjpaandhibernate.course.Course;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Throughput plus sampled latency percentiles, run with -prof gc (the benchmark profile default) for gc.alloc.rate.norm
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CourseRepositoryBenchmark {
+
+    private static final int BULK_SIZE = 100;
+
+    @Benchmark
+    public Course findById(CourseRepositoryState state) {
+        return state.access.findById(state.randomId());
+    }
+
+    @Benchmark
+    public List<Course> findByAuthor(CourseRepositoryState state) {
+        return state.access.findByAuthor(state.randomAuthor());
+    }
+
+    // Insert and delete are measured together, so the table keeps its size
+    @Benchmark
+    public void insertThenDelete(CourseRepositoryState state) {
+        long id = state.nextId.getAndIncrement();
+        state.access.insert(CourseRepositoryState.course(id));
+        state.access.deleteById(id);
+    }
+
+    @Benchmark
+    public void bulkUpsertThenDelete(CourseRepositoryState state) {
+        long firstId = state.nextId.getAndAdd(BULK_SIZE);
+        List<Course> courses = new ArrayList<>(BULK_SIZE);
+        List<Long> ids = new ArrayList<>(BULK_SIZE);
+        for (long id = firstId; id < firstId + BULK_SIZE; id++) {
+            courses.add(CourseRepositoryState.course(id));
+            ids.add(id);
+        }
+        state.access.upsertAll(courses);
+        state.access.deleteAllById(ids);
+    }
+}
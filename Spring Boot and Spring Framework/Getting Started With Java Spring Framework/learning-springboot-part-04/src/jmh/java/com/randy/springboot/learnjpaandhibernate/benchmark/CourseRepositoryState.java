@@ -0,0 +1,80 @@
+package com.randy.springboot.learnjpaandhibernate.benchmark;
+
+import com.randy.springboot.learnjpaandhibernate.LearnJpaAndHibernateApplication;
+import com.randy.springboot.learnjpaandhibernate.course.Course;
+import com.randy.springboot.learnjpaandhibernate.course.jdbc.CourseJdbcRepository;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Boots the application once per trial and seeds tableSize courses, COURSES_PER_AUTHOR per author
+@State(Scope.Benchmark)
+public class CourseRepositoryState {
+
+    static final int COURSES_PER_AUTHOR = 50;
+
+    @Param({"jdbc", "jpa", "springdatajpa"})
+    public String repository;
+
+    @Param({"1000", "100000"})
+    public int tableSize;
+
+    ConfigurableApplicationContext context;
+    CourseAccess access;
+    // Benchmarks that write use ids above the seeded range and remove their rows again, so the table size stays put
+    final AtomicLong nextId = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void boot() {
+        context = new SpringApplicationBuilder(LearnJpaAndHibernateApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:benchmark",
+                        "course.jdbc.instrumentation.enabled=false",
+                        "logging.level.root=warn")
+                .run();
+        CourseJdbcRepository seeder = context.getBean(CourseJdbcRepository.class);
+        List<Course> courses = new ArrayList<>(10_000);
+        for (long id = 1; id <= tableSize; id++) {
+            courses.add(course(id));
+            if (courses.size() == 10_000) {
+                seeder.upsertAll(courses);
+                courses.clear();
+            }
+        }
+        seeder.upsertAll(courses);
+        nextId.set(tableSize + 1L);
+        access = CourseAccess.forRepository(repository, context);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        context.close();
+    }
+
+    long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, tableSize + 1L);
+    }
+
+    String randomAuthor() {
+        return author(randomId());
+    }
+
+    static Course course(long id) {
+        return new Course(id, "Course " + id, author(id));
+    }
+
+    static String author(long id) {
+        return "Author " + ((id - 1) / COURSES_PER_AUTHOR + 1);
+    }
+}
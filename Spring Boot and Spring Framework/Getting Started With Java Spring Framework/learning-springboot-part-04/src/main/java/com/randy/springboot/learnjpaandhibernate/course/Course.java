@@ -4,7 +4,10 @@ import jakarta.persistence.*;
 import org.springframework.stereotype.Component;
 
 @Entity //(name="Course_Details") Note, this is not needed because database column name and variable name matches, if our table name is Course_Details instead we would.
-@Table(name="Users")
+@Table(name="course", indexes = {
+        @Index(name = "idx_course_author", columnList = "author, id"),
+        @Index(name = "idx_course_name", columnList = "name, id")
+})
 public class Course {
 
     @Id
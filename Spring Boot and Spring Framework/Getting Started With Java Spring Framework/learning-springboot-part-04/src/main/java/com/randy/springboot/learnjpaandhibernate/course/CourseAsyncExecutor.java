@@ -0,0 +1,76 @@
+package com.randy.springboot.learnjpaandhibernate.course;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Runs repository calls on virtual threads. Every call holds one semaphore permit, so no more calls than the
+// connection pool can serve run at once and the rest wait cheaply on their virtual thread instead of in Hikari.
+@Component
+public class CourseAsyncExecutor {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permits;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate readWriteTransaction;
+
+    public CourseAsyncExecutor(PlatformTransactionManager transactionManager,
+                               @Value("${course.async.max-concurrency:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrency) {
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readWriteTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    // Calls made from inside the repository itself skip its @Transactional proxy, so the transaction is opened here
+    public <T> CompletableFuture<T> read(Supplier<T> query) {
+        return submit(() -> readOnlyTransaction.execute(status -> query.get()));
+    }
+
+    public CompletableFuture<Void> write(Runnable command) {
+        return submit(() -> {
+            readWriteTransaction.executeWithoutResult(status -> command.run());
+            return null;
+        });
+    }
+
+    // Runs one lookup per key concurrently, results are in key order. Fails as soon as any lookup fails.
+    public <K, T> CompletableFuture<List<T>> readAll(Collection<K> keys, Function<K, T> lookup) {
+        List<CompletableFuture<T>> futures = keys.stream().map(key -> read(() -> lookup.apply(key))).toList();
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> futures.stream().map(CompletableFuture::join).toList());
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(ex);
+            }
+            try {
+                return task.get();
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,8 @@
+package com.randy.springboot.learnjpaandhibernate.course;
+
+// An author's course count, the sum of its course_author_count stripes maintained by CourseCounts
+public interface CourseAuthorCount {
+    String getAuthor();
+
+    long getCourseCount();
+}
@@ -0,0 +1,8 @@
+package com.randy.springboot.learnjpaandhibernate.course;
+
+// Interface projection for name lookups: Spring Data selects only the columns behind these getters
+public interface CourseAuthorView {
+    long getId();
+
+    String getAuthor();
+}
@@ -0,0 +1,5 @@
+package com.randy.springboot.learnjpaandhibernate.course;
+
+// DTO projection for author lookups: only id and name are selected, author is already known to the caller
+public record CourseSummary(long id, String name) {
+}
@@ -0,0 +1,45 @@
+package com.randy.springboot.learnjpaandhibernate.course;
+
+// Native insert-or-update of a course by id, one statement per row instead of merge()'s SELECT + INSERT/UPDATE.
+// Every variant binds (id, name, author) in that order.
+public enum CourseUpsertSql {
+    H2("""
+            MERGE INTO course (id, name, author) KEY (id)
+            VALUES (?, ?, ?)
+            """),
+    POSTGRESQL("""
+            INSERT INTO course (id, name, author)
+            VALUES (?, ?, ?)
+            ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name, author = EXCLUDED.author
+            """),
+    MYSQL("""
+            INSERT INTO course (id, name, author)
+            VALUES (?, ?, ?)
+            ON DUPLICATE KEY UPDATE name = VALUES(name), author = VALUES(author)
+            """);
+
+    private final String sql;
+
+    CourseUpsertSql(String sql) {
+        this.sql = sql;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    // productName as reported by DatabaseMetaData.getDatabaseProductName()
+    public static CourseUpsertSql forDatabase(String productName) {
+        String name = productName.toLowerCase();
+        if (name.contains("h2")) {
+            return H2;
+        }
+        if (name.contains("postgres")) {
+            return POSTGRESQL;
+        }
+        if (name.contains("mysql") || name.contains("mariadb")) {
+            return MYSQL;
+        }
+        throw new IllegalStateException("No course upsert statement for database " + productName);
+    }
+}
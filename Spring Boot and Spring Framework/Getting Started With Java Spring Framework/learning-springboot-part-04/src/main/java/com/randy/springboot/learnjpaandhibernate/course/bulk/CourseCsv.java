@@ -0,0 +1,81 @@
+package com.randy.springboot.learnjpaandhibernate.course.bulk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// id,name,author with RFC 4180 quoting, shared by the importer and the exporter
+public final class CourseCsv {
+
+    public static final String HEADER = "id,name,author";
+
+    private CourseCsv() {
+    }
+
+    public static void appendRow(StringBuilder out, long id, String name, String author) {
+        out.append(id).append(',');
+        appendField(out, name);
+        out.append(',');
+        appendField(out, author);
+        out.append('\n');
+    }
+
+    // A quoted field may contain line breaks, keep appending lines to the record while this is true
+    public static boolean hasOpenQuote(CharSequence record) {
+        boolean open = false;
+        for (int i = 0; i < record.length(); i++) {
+            if (record.charAt(i) == '"') {
+                open = !open;
+            }
+        }
+        return open;
+    }
+
+    public static List<String> parseRecord(String record) {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static void appendField(StringBuilder out, String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+}
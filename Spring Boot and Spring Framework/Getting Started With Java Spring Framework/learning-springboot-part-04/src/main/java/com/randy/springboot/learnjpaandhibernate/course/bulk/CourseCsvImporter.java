@@ -0,0 +1,391 @@
+package com.randy.springboot.learnjpaandhibernate.course.bulk;
+
+import com.randy.springboot.learnjpaandhibernate.course.Course;
+import com.randy.springboot.learnjpaandhibernate.course.jdbc.CourseJdbcRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Streams a course CSV into the database:
+// reader (calling thread) -> parse + validate -> one bounded queue of batches per writer -> N writers (batched upserts,
+// one transaction per batch). Rows go to writer id % N, so all rows for one id are written in file order and the last
+// one wins, like in a sequential import.
+// The checkpoint file (<file>.checkpoint) holds the byte offset up to which every batch is committed, a rerun resumes there.
+// It also records the file's size and modification time, a checkpoint written for another version of the file is ignored.
+// A finished import deletes it, so importing the same path again starts over.
+// Rows between the checkpoint and a crash are written again, which is safe because writes are upserts.
+// Rejected rows go to <file>.rejected as offset,reason,record. A fresh import starts the file over, a resume drops the
+// entries from the checkpoint on, since those rows are read (and rejected) again.
+@Component
+@EnableConfigurationProperties(CourseImportProperties.class)
+public class CourseCsvImporter {
+
+    // The longest valid record: a 20 digit id and two 255 character fields, quoted and made up of doubled quotes only
+    static final int MAX_RECORD_LENGTH = 20 + 2 * (2 + 2 * 255) + 2;
+
+    private static final Batch END = new Batch(-1, List.of(), -1);
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final CourseJdbcRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final CourseImportProperties properties;
+
+    public CourseCsvImporter(CourseJdbcRepository repository, PlatformTransactionManager transactionManager,
+                             CourseImportProperties properties) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+    }
+
+    public CourseImportResult importFile(Path file) throws IOException, InterruptedException {
+        Path checkpointFile = file.resolveSibling(file.getFileName() + ".checkpoint");
+        Path rejectedFile = file.resolveSibling(file.getFileName() + ".rejected");
+        FileVersion version = FileVersion.of(file);
+        long startPosition = readCheckpoint(checkpointFile, file, version);
+        if (startPosition > 0) {
+            logger.info("Resuming import of {} at byte {}", file, startPosition);
+            truncateRejected(rejectedFile, startPosition);
+        }
+
+        Checkpoint checkpoint = new Checkpoint(checkpointFile, version, startPosition);
+        Progress progress = new Progress();
+        int writerCount = properties.getWriters();
+        List<BlockingQueue<Batch>> queues = new ArrayList<>();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        ExecutorService writers = Executors.newFixedThreadPool(writerCount,
+                Thread.ofPlatform().name("course-import-", 0).factory());
+        List<Future<?>> writerTasks = new ArrayList<>();
+        for (int i = 0; i < writerCount; i++) {
+            BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(Math.max(properties.getQueueCapacity() / writerCount, 1));
+            queues.add(queue);
+            writerTasks.add(writers.submit(() -> write(queue, checkpoint, progress, failure)));
+        }
+
+        long start = System.nanoTime();
+        long lastReport = start;
+        // A UTF-8 character takes at most 4 bytes
+        try (CsvLineReader reader = new CsvLineReader(file, startPosition, 4 * MAX_RECORD_LENGTH);
+             BufferedWriter rejected = Files.newBufferedWriter(rejectedFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, startPosition > 0 ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING)) {
+            Dispatcher dispatcher = new Dispatcher(queues, rejected, properties.getBatchSize(), startPosition);
+            boolean header = startPosition == 0;
+            long recordStart = reader.position();
+            String record;
+            while (failure.get() == null && (record = readRecord(reader)) != null) {
+                if (header) {
+                    header = false;
+                    if (record.equals(CourseCsv.HEADER)) {
+                        recordStart = reader.position();
+                        continue;
+                    }
+                }
+                progress.read.incrementAndGet();
+                String rejection = validate(record);
+                if (rejection != null) {
+                    progress.rejected.incrementAndGet();
+                    rejected.write(recordStart + "," + rejection + "," + record.replace('\n', ' '));
+                    rejected.newLine();
+                } else {
+                    List<String> fields = CourseCsv.parseRecord(record);
+                    dispatcher.add(new Course(Long.parseLong(fields.get(0).trim()), fields.get(1), fields.get(2)), reader.position());
+                }
+                recordStart = reader.position();
+                long now = System.nanoTime();
+                if (now - lastReport >= properties.getProgressIntervalMillis() * 1_000_000) {
+                    lastReport = now;
+                    logger.info("Course import progress: {}", progress.summary(now - start));
+                }
+            }
+            // Even an empty last batch carries the end-of-file offset, so a finished import checkpoints the whole file
+            dispatcher.dispatch(reader.position());
+        } finally {
+            for (BlockingQueue<Batch> queue : queues) {
+                queue.put(END);
+            }
+            writers.shutdown();
+        }
+        for (Future<?> writerTask : writerTasks) {
+            try {
+                writerTask.get();
+            } catch (Exception ex) {
+                failure.compareAndSet(null, ex);
+            }
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("Course import of " + file + " failed, rerun to resume at byte "
+                    + checkpoint.committedPosition(), failure.get());
+        }
+
+        Files.deleteIfExists(checkpointFile);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        logger.info("Course import of {} finished: {}", file, progress.summary(elapsed.toNanos()));
+        return new CourseImportResult(progress.read.get(), progress.written.get(), progress.rejected.get(), elapsed);
+    }
+
+    private void write(BlockingQueue<Batch> queue, Checkpoint checkpoint, Progress progress, AtomicReference<Exception> failure) {
+        try {
+            Batch batch;
+            while ((batch = queue.take()) != END) {
+                if (failure.get() != null) {
+                    continue;
+                }
+                List<Course> courses = batch.courses();
+                transactionTemplate.executeWithoutResult(status -> repository.upsertAll(courses));
+                progress.written.addAndGet(courses.size());
+                checkpoint.completed(batch);
+            }
+        } catch (Exception ex) {
+            failure.compareAndSet(null, ex);
+            // Keep draining so the reader never blocks on a full queue
+            drain(queue);
+        }
+    }
+
+    private static void drain(BlockingQueue<Batch> queue) {
+        try {
+            while (queue.take() != END) {
+                // discard
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // A line with an open quote is joined with the following lines until the quote closes. When it doesn't close within
+    // MAX_RECORD_LENGTH characters (or before the end of the file), e.g. because of a stray quote, only that first line
+    // is returned. validate rejects it, and reading continues with the line after it.
+    private static String readRecord(CsvLineReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null || !CourseCsv.hasOpenQuote(line)) {
+            return line;
+        }
+        long afterFirstLine = reader.position();
+        StringBuilder record = new StringBuilder(line);
+        String next;
+        while (record.length() <= MAX_RECORD_LENGTH && (next = reader.readLine()) != null) {
+            record.append('\n').append(next);
+            if (!CourseCsv.hasOpenQuote(record)) {
+                return record.toString();
+            }
+        }
+        reader.seek(afterFirstLine);
+        return line;
+    }
+
+    // Returns the reason the record is rejected, or null when it is a valid course
+    static String validate(String record) {
+        if (record.isBlank()) {
+            return "blank line";
+        }
+        if (record.length() > MAX_RECORD_LENGTH) {
+            return "longer than " + MAX_RECORD_LENGTH + " characters";
+        }
+        if (CourseCsv.hasOpenQuote(record)) {
+            return "unterminated quote";
+        }
+        List<String> fields = CourseCsv.parseRecord(record);
+        if (fields.size() != 3) {
+            return "expected 3 fields but found " + fields.size();
+        }
+        try {
+            if (Long.parseLong(fields.get(0).trim()) <= 0) {
+                return "id must be positive";
+            }
+        } catch (NumberFormatException ex) {
+            return "id is not a number";
+        }
+        for (int i = 1; i < 3; i++) {
+            String value = fields.get(i);
+            if (value.isBlank()) {
+                return (i == 1 ? "name" : "author") + " is blank";
+            }
+            if (value.length() > 255) {
+                return (i == 1 ? "name" : "author") + " is longer than 255 characters";
+            }
+        }
+        return null;
+    }
+
+    // Returns the offset to resume at, 0 when there is no checkpoint or it belongs to another version of the file
+    private long readCheckpoint(Path checkpointFile, Path file, FileVersion version) throws IOException {
+        if (!Files.exists(checkpointFile)) {
+            return 0;
+        }
+        Properties checkpoint = new Properties();
+        try (BufferedReader in = Files.newBufferedReader(checkpointFile, StandardCharsets.UTF_8)) {
+            checkpoint.load(in);
+        }
+        try {
+            FileVersion checkpointed = new FileVersion(Long.parseLong(checkpoint.getProperty("size")),
+                    Long.parseLong(checkpoint.getProperty("lastModified")));
+            if (checkpointed.equals(version)) {
+                return Long.parseLong(checkpoint.getProperty("position"));
+            }
+        } catch (NumberFormatException ex) {
+            // null or garbled, handled like a checkpoint for another file
+        }
+        logger.warn("Ignoring {}, it was written for another version of {}, importing it from the start", checkpointFile, file);
+        return 0;
+    }
+
+    static void writeCheckpoint(Path checkpointFile, FileVersion version, long position) throws IOException {
+        Properties checkpoint = new Properties();
+        checkpoint.setProperty("position", Long.toString(position));
+        checkpoint.setProperty("size", Long.toString(version.size()));
+        checkpoint.setProperty("lastModified", Long.toString(version.lastModifiedMillis()));
+        Path temporary = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            checkpoint.store(out, null);
+        }
+        Files.move(temporary, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Keeps only the entries before position, a line torn by a crash is dropped with the rest
+    private static void truncateRejected(Path rejectedFile, long position) throws IOException {
+        if (!Files.exists(rejectedFile)) {
+            return;
+        }
+        Path temporary = rejectedFile.resolveSibling(rejectedFile.getFileName() + ".tmp");
+        try (BufferedReader in = Files.newBufferedReader(rejectedFile, StandardCharsets.UTF_8);
+             BufferedWriter out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                int comma = line.indexOf(',');
+                if (comma > 0 && Long.parseLong(line.substring(0, comma)) < position) {
+                    out.write(line);
+                    out.newLine();
+                }
+            }
+        }
+        Files.move(temporary, rejectedFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private record Batch(long sequence, List<Course> courses, long endPosition) {
+    }
+
+    // Identifies the contents a checkpoint was written for
+    record FileVersion(long size, long lastModifiedMillis) {
+        static FileVersion of(Path file) throws IOException {
+            return new FileVersion(Files.size(file), Files.getLastModifiedTime(file).toMillis());
+        }
+    }
+
+    // Collects valid rows into one batch per writer. As soon as one of them is full, all of them are queued, so every
+    // row before the current offset is in a queued batch and the last of them can carry that offset as its checkpoint.
+    // The others carry the offset of the previous dispatch, which they don't complete on their own.
+    private static class Dispatcher {
+        private final List<BlockingQueue<Batch>> queues;
+        private final List<List<Course>> batches = new ArrayList<>();
+        private final BufferedWriter rejected;
+        private final int batchSize;
+        private long sequence;
+        private long dispatchedPosition;
+
+        Dispatcher(List<BlockingQueue<Batch>> queues, BufferedWriter rejected, int batchSize, long startPosition) {
+            this.queues = queues;
+            this.rejected = rejected;
+            this.batchSize = batchSize;
+            this.dispatchedPosition = startPosition;
+            for (int i = 0; i < queues.size(); i++) {
+                batches.add(new ArrayList<>(batchSize));
+            }
+        }
+
+        // position is the offset right after the course's record
+        void add(Course course, long position) throws IOException, InterruptedException {
+            List<Course> batch = batches.get((int) Math.floorMod(course.getId(), (long) queues.size()));
+            batch.add(course);
+            if (batch.size() == batchSize) {
+                dispatch(position);
+            }
+        }
+
+        void dispatch(long position) throws IOException, InterruptedException {
+            // Rejected rows before position must be on disk before the checkpoint can move past them
+            rejected.flush();
+            int last = batches.size() - 1;
+            while (last > 0 && batches.get(last).isEmpty()) {
+                last--;
+            }
+            for (int i = 0; i <= last; i++) {
+                List<Course> batch = batches.get(i);
+                if (!batch.isEmpty() || i == last) {
+                    queues.get(i).put(new Batch(sequence++, batch, i == last ? position : dispatchedPosition));
+                    batches.set(i, new ArrayList<>(batchSize));
+                }
+            }
+            dispatchedPosition = position;
+        }
+    }
+
+    private static class Progress {
+        final AtomicLong read = new AtomicLong();
+        final AtomicLong written = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+
+        String summary(long elapsedNanos) {
+            long millis = Math.max(elapsedNanos / 1_000_000, 1);
+            return read.get() + " rows read, " + written.get() + " written, " + rejected.get() + " rejected, "
+                    + (written.get() * 1000 / millis) + " rows/s";
+        }
+    }
+
+    // Batches finish out of order, only the offset of the last batch with every earlier batch committed is saved
+    private static class Checkpoint {
+        private final Path file;
+        private final FileVersion version;
+        private final Map<Long, Long> completedPositions = new HashMap<>();
+        private long nextSequence;
+        private long committedPosition;
+
+        Checkpoint(Path file, FileVersion version, long committedPosition) {
+            this.file = file;
+            this.version = version;
+            this.committedPosition = committedPosition;
+        }
+
+        synchronized void completed(Batch batch) throws IOException {
+            completedPositions.put(batch.sequence(), batch.endPosition());
+            Long position;
+            boolean advanced = false;
+            while ((position = completedPositions.remove(nextSequence)) != null) {
+                committedPosition = position;
+                nextSequence++;
+                advanced = true;
+            }
+            if (advanced) {
+                writeCheckpoint(file, version, committedPosition);
+            }
+        }
+
+        synchronized long committedPosition() {
+            return committedPosition;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.randy.springboot.learnjpaandhibernate.course.bulk;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+@Component
+@ConditionalOnProperty(prefix = "course.export", name = "file")
+public class CourseExportCommandLineRunner implements CommandLineRunner {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    @Autowired
+    private CourseExporter exporter;
+
+    @Autowired
+    private CourseExportProperties properties;
+
+    @Override
+    public void run(String... args) throws Exception {
+        long rows = exporter.export(properties.getFormat(), properties.isGzip(), Path.of(properties.getFile()));
+        logger.info("Exported {} courses to {}", rows, properties.getFile());
+    }
+}
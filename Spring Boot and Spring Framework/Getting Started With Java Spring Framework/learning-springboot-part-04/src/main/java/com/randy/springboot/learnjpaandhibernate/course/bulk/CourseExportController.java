@@ -0,0 +1,43 @@
+package com.randy.springboot.learnjpaandhibernate.course.bulk;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+
+@RestController
+public class CourseExportController {
+
+    @Autowired
+    private CourseExporter exporter;
+
+    // GET /courses/export?format=ndjson&gzip=true
+    // A gzipped export is a .gz file (application/gzip), not a Content-Encoding, so clients save it compressed
+    @GetMapping("/courses/export")
+    public void export(@RequestParam(defaultValue = "csv") String format,
+                       @RequestParam(defaultValue = "false") boolean gzip,
+                       HttpServletResponse response) throws IOException {
+        CourseExportFormat exportFormat = Arrays.stream(CourseExportFormat.values())
+                .filter(candidate -> candidate.name().equals(format.toUpperCase(Locale.ROOT)))
+                .findFirst()
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Unknown export format " + format + ", expected one of " + Arrays.toString(CourseExportFormat.values())));
+        if (gzip) {
+            response.setContentType("application/gzip");
+        } else {
+            response.setContentType(exportFormat.getContentType());
+            response.setCharacterEncoding("UTF-8");
+        }
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"courses." + exportFormat.getExtension() + (gzip ? ".gz\"" : "\""));
+        exporter.export(exportFormat, gzip, response.getOutputStream());
+    }
+}
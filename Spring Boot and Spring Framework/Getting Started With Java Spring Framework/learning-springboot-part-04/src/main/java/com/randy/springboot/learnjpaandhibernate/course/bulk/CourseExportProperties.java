@@ -0,0 +1,46 @@
+package com.randy.springboot.learnjpaandhibernate.course.bulk;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "course.export")
+public class CourseExportProperties {
+    // When set, CourseExportCommandLineRunner exports the course table to this file on startup
+    private String file;
+    private CourseExportFormat format = CourseExportFormat.CSV;
+    private boolean gzip;
+    // Rows the driver fetches per round trip, the most the export holds in memory at once
+    // (on H2 only with lazy query execution, which the exporter turns on)
+    private int fetchSize = 1000;
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public CourseExportFormat getFormat() {
+        return format;
+    }
+
+    public void setFormat(CourseExportFormat format) {
+        this.format = format;
+    }
+
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    public void setGzip(boolean gzip) {
+        this.gzip = gzip;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+}
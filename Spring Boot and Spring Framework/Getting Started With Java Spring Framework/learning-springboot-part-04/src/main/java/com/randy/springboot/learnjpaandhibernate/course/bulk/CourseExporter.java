@@ -0,0 +1,216 @@
+package com.randy.springboot.learnjpaandhibernate.course.bulk;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.zip.GZIPOutputStream;
+
+// Streams the course table from a forward-only, read-only cursor straight into a channel.
+// Only the driver's fetch batch and two reused buffers are in memory, whatever the table size.
+// H2 ignores the fetch size and builds the whole result unless lazy query execution is on, so the
+// export switches it on for its own query and back off before the pooled connection is returned.
+@Component
+@EnableConfigurationProperties(CourseExportProperties.class)
+public class CourseExporter {
+
+    private static final int FLUSH_THRESHOLD = 32 * 1024;
+
+    private static String SELECT_ALL_QUERY =
+            """
+                    SELECT id, name, author from course
+                    ORDER BY id;
+                    """;
+
+    private static String LAZY_ON = "SET LAZY_QUERY_EXECUTION TRUE";
+
+    private static String LAZY_OFF = "SET LAZY_QUERY_EXECUTION FALSE";
+
+    private final JdbcTemplate springJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final CourseExportProperties properties;
+
+    public CourseExporter(JdbcTemplate springJdbcTemplate, PlatformTransactionManager transactionManager,
+                          CourseExportProperties properties) {
+        this.springJdbcTemplate = springJdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        // Some drivers (PostgreSQL) only honour the fetch size with auto-commit off
+        this.readOnlyTransaction.setReadOnly(true);
+        this.properties = properties;
+    }
+
+    // Returns the number of rows exported
+    public long export(CourseExportFormat format, boolean gzip, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (!gzip) {
+                return export(format, channel);
+            }
+            // Closing the gzip stream writes the trailer and closes the file channel
+            try (GZIPOutputStream out = new GZIPOutputStream(Channels.newOutputStream(channel), FLUSH_THRESHOLD)) {
+                return export(format, Channels.newChannel(out));
+            }
+        }
+    }
+
+    // Does not close the stream, the caller (e.g. the servlet container) owns it
+    public long export(CourseExportFormat format, boolean gzip, OutputStream out) throws IOException {
+        if (!gzip) {
+            return export(format, Channels.newChannel(out));
+        }
+        GZIPOutputStream gzipOut = new GZIPOutputStream(out, FLUSH_THRESHOLD);
+        long rows = export(format, Channels.newChannel(gzipOut));
+        gzipOut.finish();
+        return rows;
+    }
+
+    public long export(CourseExportFormat format, WritableByteChannel channel) throws IOException {
+        RowWriter writer = new RowWriter(format, channel);
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                // The transaction pins the connection, so the SET and the query share a session
+                boolean lazy = isH2();
+                if (lazy) {
+                    springJdbcTemplate.execute(LAZY_ON);
+                }
+                try {
+                    springJdbcTemplate.query(connection -> {
+                        PreparedStatement statement = connection.prepareStatement(SELECT_ALL_QUERY,
+                                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                        statement.setFetchSize(properties.getFetchSize());
+                        return statement;
+                    }, writer);
+                } finally {
+                    if (lazy) {
+                        springJdbcTemplate.execute(LAZY_OFF);
+                    }
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        writer.finish();
+        return writer.rows;
+    }
+
+    private boolean isH2() {
+        return Boolean.TRUE.equals(springJdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                connection.getMetaData().getDatabaseProductName().equalsIgnoreCase("H2")));
+    }
+
+    private static class RowWriter implements RowCallbackHandler {
+        private final CourseExportFormat format;
+        private final WritableByteChannel channel;
+        private final StringBuilder chars = new StringBuilder(FLUSH_THRESHOLD + 1024);
+        private final ByteBuffer bytes = ByteBuffer.allocateDirect(FLUSH_THRESHOLD * 2);
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        private long rows;
+
+        RowWriter(CourseExportFormat format, WritableByteChannel channel) {
+            this.format = format;
+            this.channel = channel;
+            if (format == CourseExportFormat.CSV) {
+                chars.append(CourseCsv.HEADER).append('\n');
+            }
+        }
+
+        @Override
+        public void processRow(ResultSet resultSet) throws SQLException {
+            long id = resultSet.getLong(1);
+            String name = resultSet.getString(2);
+            String author = resultSet.getString(3);
+            if (format == CourseExportFormat.CSV) {
+                CourseCsv.appendRow(chars, id, name, author);
+            } else {
+                chars.append("{\"id\":").append(id).append(",\"name\":");
+                appendJsonString(chars, name);
+                chars.append(",\"author\":");
+                appendJsonString(chars, author);
+                chars.append("}\n");
+            }
+            rows++;
+            if (chars.length() >= FLUSH_THRESHOLD) {
+                try {
+                    flush(false);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+        }
+
+        void finish() throws IOException {
+            flush(true);
+        }
+
+        private void flush(boolean endOfInput) throws IOException {
+            CharBuffer in = CharBuffer.wrap(chars);
+            while (true) {
+                CoderResult result = encoder.encode(in, bytes, endOfInput);
+                if (result.isError()) {
+                    result.throwException();
+                }
+                write();
+                if (result.isUnderflow()) {
+                    break;
+                }
+            }
+            if (endOfInput) {
+                encoder.flush(bytes);
+                write();
+                encoder.reset();
+            }
+            // An unpaired high surrogate at the end stays behind for the next row
+            chars.delete(0, in.position());
+        }
+
+        private void write() throws IOException {
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            bytes.clear();
+        }
+
+        private static void appendJsonString(StringBuilder out, String value) {
+            out.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"' -> out.append("\\\"");
+                    case '\\' -> out.append("\\\\");
+                    case '\n' -> out.append("\\n");
+                    case '\r' -> out.append("\\r");
+                    case '\t' -> out.append("\\t");
+                    default -> {
+                        if (c < 0x20) {
+                            out.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            out.append(c);
+                        }
+                    }
+                }
+            }
+            out.append('"');
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.randy.springboot.learnjpaandhibernate.course.bulk;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+@Component
+@ConditionalOnProperty(prefix = "course.import", name = "file")
+public class CourseImportCommandLineRunner implements CommandLineRunner {
+
+    @Autowired
+    private CourseCsvImporter importer;
+
+    @Autowired
+    private CourseImportProperties properties;
+
+    @Override
+    public void run(String... args) throws Exception {
+        importer.importFile(Path.of(properties.getFile()));
+    }
+}
@@ -0,0 +1,55 @@
+package com.randy.springboot.learnjpaandhibernate.course.bulk;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "course.import")
+public class CourseImportProperties {
+    // When set, CourseImportCommandLineRunner imports this file on startup
+    private String file;
+    private int writers = 4;
+    private int batchSize = 1000;
+    // Batches waiting for the writers (split evenly between their queues), together with batchSize this bounds the memory
+    // the import uses
+    private int queueCapacity = 16;
+    private long progressIntervalMillis = 5000;
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public int getWriters() {
+        return writers;
+    }
+
+    public void setWriters(int writers) {
+        this.writers = writers;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public long getProgressIntervalMillis() {
+        return progressIntervalMillis;
+    }
+
+    public void setProgressIntervalMillis(long progressIntervalMillis) {
+        this.progressIntervalMillis = progressIntervalMillis;
+    }
+}
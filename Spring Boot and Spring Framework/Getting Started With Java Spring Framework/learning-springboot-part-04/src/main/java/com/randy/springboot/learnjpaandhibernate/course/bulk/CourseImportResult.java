@@ -0,0 +1,10 @@
+package com.randy.springboot.learnjpaandhibernate.course.bulk;
+
+import java.time.Duration;
+
+public record CourseImportResult(long rowsRead, long rowsWritten, long rowsRejected, Duration elapsed) {
+
+    public double rowsPerSecond() {
+        return elapsed.isZero() ? rowsWritten : rowsWritten * 1000.0 / elapsed.toMillis();
+    }
+}
@@ -0,0 +1,81 @@
+package com.randy.springboot.learnjpaandhibernate.course.bulk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Reads UTF-8 lines straight from a FileChannel through one reused buffer and tracks the byte offset after every line,
+// which is what the import checkpoint stores
+class CsvLineReader implements AutoCloseable {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    private final int maxLineBytes;
+    private byte[] line = new byte[256];
+    private long position;
+
+    CsvLineReader(Path file, long startPosition, int maxLineBytes) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.maxLineBytes = maxLineBytes;
+        seek(startPosition);
+    }
+
+    // Returns null at end of file. Line terminators (\n or \r\n) are not included.
+    // Only the first maxLineBytes + 1 bytes of a longer line are kept, so a file without line breaks can't exhaust memory.
+    String readLine() throws IOException {
+        int length = 0;
+        boolean readAnything = false;
+        while (true) {
+            if (!buffer.hasRemaining()) {
+                buffer.clear();
+                int read = channel.read(buffer);
+                buffer.flip();
+                if (read < 0) {
+                    return readAnything ? decode(length) : null;
+                }
+            }
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                position++;
+                readAnything = true;
+                if (b == '\n') {
+                    return decode(length);
+                }
+                if (length > maxLineBytes) {
+                    continue;
+                }
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, length * 2);
+                }
+                line[length++] = b;
+            }
+        }
+    }
+
+    long position() {
+        return position;
+    }
+
+    void seek(long newPosition) throws IOException {
+        channel.position(newPosition);
+        position = newPosition;
+        buffer.clear();
+        buffer.flip();
+    }
+
+    private String decode(int length) {
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
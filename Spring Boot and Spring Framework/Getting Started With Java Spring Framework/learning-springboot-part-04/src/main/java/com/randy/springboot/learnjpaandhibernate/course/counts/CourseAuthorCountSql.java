@@ -0,0 +1,44 @@
+package com.randy.springboot.learnjpaandhibernate.course.counts;
+
+import com.randy.springboot.learnjpaandhibernate.course.CourseUpsertSql;
+
+// Adds a delta to one stripe of an author's count, creating the stripe row on first use.
+// Every variant binds (author, stripe, delta) in that order.
+public enum CourseAuthorCountSql {
+    H2("""
+            MERGE INTO course_author_count t
+            USING (VALUES (CAST(? AS varchar(255)), CAST(? AS int), CAST(? AS bigint))) s (author, stripe, delta)
+            ON t.author = s.author AND t.stripe = s.stripe
+            WHEN MATCHED THEN UPDATE SET course_count = t.course_count + s.delta
+            WHEN NOT MATCHED THEN INSERT (author, stripe, course_count) VALUES (s.author, s.stripe, s.delta)
+            """),
+    POSTGRESQL("""
+            INSERT INTO course_author_count (author, stripe, course_count)
+            VALUES (?, ?, ?)
+            ON CONFLICT (author, stripe) DO UPDATE SET course_count = course_author_count.course_count + EXCLUDED.course_count
+            """),
+    MYSQL("""
+            INSERT INTO course_author_count (author, stripe, course_count)
+            VALUES (?, ?, ?)
+            ON DUPLICATE KEY UPDATE course_count = course_count + VALUES(course_count)
+            """);
+
+    private final String sql;
+
+    CourseAuthorCountSql(String sql) {
+        this.sql = sql;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    // Supports the same databases as the course upserts
+    public static CourseAuthorCountSql forDatabase(String productName) {
+        return switch (CourseUpsertSql.forDatabase(productName)) {
+            case H2 -> H2;
+            case POSTGRESQL -> POSTGRESQL;
+            case MYSQL -> MYSQL;
+        };
+    }
+}
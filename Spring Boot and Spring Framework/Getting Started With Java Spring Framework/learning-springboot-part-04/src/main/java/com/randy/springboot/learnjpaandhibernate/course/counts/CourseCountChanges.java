@@ -0,0 +1,51 @@
+package com.randy.springboot.learnjpaandhibernate.course.counts;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+// Net effect of one repository call on the course counts, applied with CourseCounts.apply in the same transaction
+public class CourseCountChanges {
+
+    private long total;
+    private final Map<String, Long> authors = new HashMap<>();
+
+    public void inserted(String author) {
+        total++;
+        add(author, 1);
+    }
+
+    public void deleted(String author, long courses) {
+        total -= courses;
+        add(author, -courses);
+    }
+
+    // previousAuthor is null when the upsert inserted the course
+    public void upserted(String previousAuthor, String author) {
+        if (previousAuthor == null) {
+            inserted(author);
+        } else if (!Objects.equals(previousAuthor, author)) {
+            add(previousAuthor, -1);
+            add(author, 1);
+        }
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    // Authors whose count changed, e.g. a course moved away and back within one batch is left out
+    public Map<String, Long> getAuthors() {
+        Map<String, Long> changed = new HashMap<>(authors);
+        changed.values().removeIf(delta -> delta == 0);
+        return changed;
+    }
+
+    public boolean isEmpty() {
+        return total == 0 && getAuthors().isEmpty();
+    }
+
+    private void add(String author, long delta) {
+        authors.merge(author, delta, Long::sum);
+    }
+}
@@ -0,0 +1,62 @@
+package com.randy.springboot.learnjpaandhibernate.course.counts;
+
+import com.randy.springboot.learnjpaandhibernate.course.Course;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+// Counts the course writes Hibernate flushes from the persistence context (persist, merge, remove, e.g. Spring Data's
+// save and delete). Runs right after each statement, in the flushing transaction. Native upserts and bulk deletes
+// never reach these events, the repositories count those themselves.
+public class CourseCountEventListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final String AUTHOR = "author";
+
+    private final CourseCounts courseCounts;
+
+    public CourseCountEventListener(CourseCounts courseCounts) {
+        this.courseCounts = courseCounts;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Course) {
+            CourseCountChanges changes = new CourseCountChanges();
+            changes.inserted(author(event.getPersister(), event.getState()));
+            courseCounts.apply(changes);
+        }
+    }
+
+    // Without a loaded state (an update of an entity Hibernate never read) the previous author is unknown,
+    // CourseCountReconciler corrects that case
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Course && event.getOldState() != null) {
+            CourseCountChanges changes = new CourseCountChanges();
+            changes.upserted(author(event.getPersister(), event.getOldState()), author(event.getPersister(), event.getState()));
+            courseCounts.apply(changes);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Course) {
+            CourseCountChanges changes = new CourseCountChanges();
+            changes.deleted(author(event.getPersister(), event.getDeletedState()), 1);
+            courseCounts.apply(changes);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private static String author(EntityPersister persister, Object[] state) {
+        return (String) state[persister.getPropertyIndex(AUTHOR)];
+    }
+}
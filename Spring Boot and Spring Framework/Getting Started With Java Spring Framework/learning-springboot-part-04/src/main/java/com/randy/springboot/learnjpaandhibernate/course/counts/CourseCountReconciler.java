@@ -0,0 +1,111 @@
+package com.randy.springboot.learnjpaandhibernate.course.counts;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// Recomputes course_count and course_author_count from the course table and corrects any drift,
+// e.g. after rows were changed outside the repositories or restored from a backup.
+@Component
+public class CourseCountReconciler {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private static String LOCK_STRIPES_QUERY =
+            """
+                    SELECT course_count from course_count
+                    ORDER BY stripe
+                    FOR UPDATE;
+                    """;
+
+    private static String COUNT_QUERY =
+            """
+                    SELECT count(*) from course;
+                    """;
+
+    private static String RESET_TOTAL_QUERY =
+            """
+                    UPDATE course_count SET course_count = CASE WHEN stripe = 0 THEN ? ELSE 0 END;
+                    """;
+
+    private static String COUNTED_AUTHORS_QUERY =
+            """
+                    SELECT author, sum(course_count) from course_author_count
+                    GROUP BY author;
+                    """;
+
+    private static String ACTUAL_AUTHORS_QUERY =
+            """
+                    SELECT author, count(*) from course
+                    GROUP BY author;
+                    """;
+
+    private static String DELETE_AUTHOR_QUERY =
+            """
+                    DELETE FROM course_author_count
+                    WHERE author = ?;
+                    """;
+
+    private static String INSERT_AUTHOR_QUERY =
+            """
+                    INSERT INTO course_author_count (author, stripe, course_count)
+                    VALUES (?, 0, ?);
+                    """;
+
+    @Autowired
+    private JdbcTemplate springJdbcTemplate;
+
+    // Every counted write updates a total stripe before anything else, so holding all of them keeps writers out until
+    // the counts are fixed. Drifted authors are rewritten into a single stripe, authors without courses are removed.
+    @Transactional
+    @Scheduled(initialDelayString = "${course.counts.reconcile-interval-millis:3600000}",
+            fixedDelayString = "${course.counts.reconcile-interval-millis:3600000}")
+    public int reconcile() {
+        long total = springJdbcTemplate.queryForList(LOCK_STRIPES_QUERY, Long.class).stream().mapToLong(Long::longValue).sum();
+        long actual = springJdbcTemplate.queryForObject(COUNT_QUERY, Long.class);
+        if (total != actual) {
+            springJdbcTemplate.update(RESET_TOTAL_QUERY, actual);
+        }
+
+        Map<String, Long> counted = authorCounts(COUNTED_AUTHORS_QUERY);
+        Map<String, Long> actualAuthors = authorCounts(ACTUAL_AUTHORS_QUERY);
+        Set<String> authors = new HashSet<>(counted.keySet());
+        authors.addAll(actualAuthors.keySet());
+        List<String> drifted = authors.stream()
+                .filter(author -> !Objects.equals(counted.get(author), actualAuthors.get(author)))
+                .toList();
+        if (!drifted.isEmpty()) {
+            springJdbcTemplate.batchUpdate(DELETE_AUTHOR_QUERY, drifted, drifted.size(),
+                    (statement, author) -> statement.setString(1, author));
+            List<String> present = drifted.stream().filter(actualAuthors::containsKey).toList();
+            springJdbcTemplate.batchUpdate(INSERT_AUTHOR_QUERY, present, Math.max(present.size(), 1), (statement, author) -> {
+                statement.setString(1, author);
+                statement.setLong(2, actualAuthors.get(author));
+            });
+        }
+
+        if (!drifted.isEmpty() || total != actual) {
+            logger.warn("Course counts drifted: total was {} (actually {}), {} author counts rewritten", total, actual, drifted.size());
+        }
+        return drifted.size();
+    }
+
+    private Map<String, Long> authorCounts(String query) {
+        Map<String, Long> counts = new HashMap<>();
+        springJdbcTemplate.query(query, rs -> {
+            counts.put(rs.getString(1), rs.getLong(2));
+        });
+        return counts;
+    }
+}
@@ -0,0 +1,113 @@
+package com.randy.springboot.learnjpaandhibernate.course.counts;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Maintains course_count and course_author_count for the repositories, on the connection and in the transaction of
+// the write that changed the course table. Callers lock the rows they change with lockAuthors, write, then apply.
+// Every count is split over STRIPES rows that are summed on read: each apply picks a random stripe, so concurrent
+// writers (import workers, write-behind flushes) rarely wait for each other's row locks.
+@Component
+public class CourseCounts {
+
+    // schema.sql creates one course_count row per stripe
+    public static final int STRIPES = 16;
+
+    private static final int LOCK_BATCH_SIZE = 500;
+
+    private static String LOCK_AUTHORS_QUERY =
+            """
+                    SELECT id, author from course
+                    WHERE id IN (:ids)
+                    FOR UPDATE;
+                    """;
+
+    private static String UPDATE_TOTAL_QUERY =
+            """
+                    UPDATE course_count SET course_count = course_count + ?
+                    WHERE stripe = ?;
+                    """;
+
+    private static String LOCK_STRIPES_QUERY =
+            """
+                    SELECT course_count from course_count
+                    ORDER BY stripe
+                    FOR UPDATE;
+                    """;
+
+    private static String CLEAR_TOTAL_QUERY =
+            """
+                    UPDATE course_count SET course_count = 0;
+                    """;
+
+    private static String CLEAR_AUTHORS_QUERY =
+            """
+                    DELETE FROM course_author_count;
+                    """;
+
+    @Autowired
+    private JdbcTemplate springJdbcTemplate;
+    private volatile CourseAuthorCountSql authorCountSql;
+
+    // Current author of every course in ids that exists. The rows stay locked until the transaction ends,
+    // so a concurrent write to the same course can't be counted against an author that is no longer current.
+    public Map<Long, String> lockAuthors(Collection<Long> ids) {
+        Map<Long, String> authors = new HashMap<>();
+        List<Long> remaining = new ArrayList<>(ids);
+        for (int from = 0; from < remaining.size(); from += LOCK_BATCH_SIZE) {
+            List<Long> batch = remaining.subList(from, Math.min(from + LOCK_BATCH_SIZE, remaining.size()));
+            new NamedParameterJdbcTemplate(springJdbcTemplate).query(LOCK_AUTHORS_QUERY, Map.of("ids", batch),
+                    rs -> {
+                        authors.put(rs.getLong("id"), rs.getString("author"));
+                    });
+        }
+        return authors;
+    }
+
+    // The total stripe is updated (and so locked) before any author row, even when only authors changed.
+    // CourseCountReconciler locks every stripe to keep writers out, author rows are only ever locked after a stripe.
+    public void apply(CourseCountChanges changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        int stripe = ThreadLocalRandom.current().nextInt(STRIPES);
+        springJdbcTemplate.update(UPDATE_TOTAL_QUERY, changes.getTotal(), stripe);
+        List<Map.Entry<String, Long>> authors = List.copyOf(changes.getAuthors().entrySet());
+        if (!authors.isEmpty()) {
+            springJdbcTemplate.batchUpdate(authorCountSql(), authors, authors.size(), (statement, author) -> {
+                statement.setString(1, author.getKey());
+                statement.setInt(2, stripe);
+                statement.setLong(3, author.getValue());
+            });
+        }
+    }
+
+    // For deletes of the whole table, call before deleting so no concurrent writer is counted in between
+    public void lockAll() {
+        springJdbcTemplate.queryForList(LOCK_STRIPES_QUERY, Long.class);
+    }
+
+    public void clear() {
+        springJdbcTemplate.update(CLEAR_TOTAL_QUERY);
+        springJdbcTemplate.update(CLEAR_AUTHORS_QUERY);
+    }
+
+    private String authorCountSql() {
+        if (authorCountSql == null) {
+            String productName = springJdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            authorCountSql = CourseAuthorCountSql.forDatabase(productName);
+        }
+        return authorCountSql.getSql();
+    }
+}
@@ -1,16 +1,37 @@
 package com.randy.springboot.learnjpaandhibernate.course.jdbc;
 
 import com.randy.springboot.learnjpaandhibernate.course.Course;
+import com.randy.springboot.learnjpaandhibernate.course.CourseAsyncExecutor;
+import com.randy.springboot.learnjpaandhibernate.course.CourseSummary;
+import com.randy.springboot.learnjpaandhibernate.course.CourseUpsertSql;
+import com.randy.springboot.learnjpaandhibernate.course.counts.CourseCountChanges;
+import com.randy.springboot.learnjpaandhibernate.course.counts.CourseCounts;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Repository
 public class CourseJdbcRepository {
 
+    private static final int UPSERT_BATCH_SIZE = 500;
+
     @Autowired
     private JdbcTemplate springJdbcTemplate;
+    @Autowired
+    private CourseAsyncExecutor asyncExecutor;
+    @Autowired
+    private CourseCounts courseCounts;
+    private volatile CourseUpsertSql upsertSql;
     private static String INSERT_QUERY =
             """
                     INSERT INTO course (id, name, author)
@@ -23,24 +44,182 @@ public class CourseJdbcRepository {
                     WHERE id = ?;
                     """;
 
+    private static String DELETE_ALL_BY_ID_QUERY =
+            """
+                    delete from course
+                    WHERE id IN (:ids);
+                    """;
+
+    private static String DELETE_BY_AUTHOR_QUERY =
+            """
+                    delete from course
+                    WHERE author = ?;
+                    """;
+
     private static String SELECT_QUERY =
             """
                     SELECT * from course 
                     WHERE id = ?;
                     """;
 
+    private static String SELECT_BY_AUTHOR_QUERY =
+            """
+                    SELECT * from course
+                    WHERE author = ?
+                    ORDER BY id;
+                    """;
+
+    // Keyset pagination: pass the last id of the previous page (0 for the first page), served by idx_course_author
+    private static String SELECT_BY_AUTHOR_AFTER_ID_QUERY =
+            """
+                    SELECT id, name from course
+                    WHERE author = ? AND id > ?
+                    ORDER BY id
+                    LIMIT ?;
+                    """;
+
+    private static String SELECT_BY_NAME_AFTER_ID_QUERY =
+            """
+                    SELECT * from course
+                    WHERE name = ? AND id > ?
+                    ORDER BY id
+                    LIMIT ?;
+                    """;
+
+    // Counts maintained by CourseCounts, neither query touches the course table
+    private static String COUNT_QUERY =
+            """
+                    SELECT coalesce(sum(course_count), 0) from course_count;
+                    """;
+
+    private static String COUNT_BY_AUTHOR_QUERY =
+            """
+                    SELECT coalesce(sum(course_count), 0) from course_author_count
+                    WHERE author = ?;
+                    """;
+
+    private static final RowMapper<CourseSummary> SUMMARY_ROW_MAPPER =
+            (rs, rowNum) -> new CourseSummary(rs.getLong("id"), rs.getString("name"));
+
+    // Writes update the course counts in their own transaction, see CourseCounts
+    @Transactional
     public void insert(Course course) {
         springJdbcTemplate.update(INSERT_QUERY, course.getId(), course.getName(), course.getAuthor());
+        CourseCountChanges changes = new CourseCountChanges();
+        changes.inserted(course.getAuthor());
+        courseCounts.apply(changes);
     }
 
+    @Transactional
+    public void upsert(Course course) {
+        upsertAll(List.of(course));
+    }
+
+    // Sent to the database in JDBC batches of UPSERT_BATCH_SIZE rows
+    @Transactional
+    public void upsertAll(Collection<Course> courses) {
+        if (courses.isEmpty()) {
+            return;
+        }
+        Map<Long, String> authors = courseCounts.lockAuthors(courses.stream().map(Course::getId).toList());
+        springJdbcTemplate.batchUpdate(upsertSql(), courses, UPSERT_BATCH_SIZE, (statement, course) -> {
+            statement.setLong(1, course.getId());
+            statement.setString(2, course.getName());
+            statement.setString(3, course.getAuthor());
+        });
+        CourseCountChanges changes = new CourseCountChanges();
+        for (Course course : courses) {
+            changes.upserted(authors.put(course.getId(), course.getAuthor()), course.getAuthor());
+        }
+        courseCounts.apply(changes);
+    }
+
+    @Transactional
     public void deleteById(long id) {
-        springJdbcTemplate.update(DELETE_QUERY, id);
+        String author = courseCounts.lockAuthors(List.of(id)).get(id);
+        if (springJdbcTemplate.update(DELETE_QUERY, id) > 0) {
+            CourseCountChanges changes = new CourseCountChanges();
+            changes.deleted(author, 1);
+            courseCounts.apply(changes);
+        }
+    }
+
+    @Transactional
+    public int deleteAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Map<Long, String> authors = courseCounts.lockAuthors(ids);
+        int deleted = new NamedParameterJdbcTemplate(springJdbcTemplate).update(DELETE_ALL_BY_ID_QUERY, Map.of("ids", ids));
+        CourseCountChanges changes = new CourseCountChanges();
+        authors.values().forEach(author -> changes.deleted(author, 1));
+        courseCounts.apply(changes);
+        return deleted;
+    }
+
+    @Transactional
+    public int deleteByAuthor(String author) {
+        int deleted = springJdbcTemplate.update(DELETE_BY_AUTHOR_QUERY, author);
+        CourseCountChanges changes = new CourseCountChanges();
+        changes.deleted(author, deleted);
+        courseCounts.apply(changes);
+        return deleted;
     }
 
+    // Read-only transactions are routed to a replica when course.datasource.routing is enabled
+    @Transactional(readOnly = true)
     public Course findById(long id) {
         return springJdbcTemplate.queryForObject(SELECT_QUERY, new BeanPropertyRowMapper<>(Course.class), id);
     }
-}
 
+    @Transactional(readOnly = true)
+    public List<Course> findByAuthor(String author) {
+        return springJdbcTemplate.query(SELECT_BY_AUTHOR_QUERY, new BeanPropertyRowMapper<>(Course.class), author);
+    }
+
+    @Transactional(readOnly = true)
+    public List<CourseSummary> findSummariesByAuthor(String author, long afterId, int limit) {
+        return springJdbcTemplate.query(SELECT_BY_AUTHOR_AFTER_ID_QUERY, SUMMARY_ROW_MAPPER, author, afterId, limit);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Course> findByName(String name, long afterId, int limit) {
+        return springJdbcTemplate.query(SELECT_BY_NAME_AFTER_ID_QUERY, new BeanPropertyRowMapper<>(Course.class), name, afterId, limit);
+    }
+
+    @Transactional(readOnly = true)
+    public long count() {
+        return springJdbcTemplate.queryForObject(COUNT_QUERY, Long.class);
+    }
+
+    @Transactional(readOnly = true)
+    public long countByAuthor(String author) {
+        return springJdbcTemplate.queryForObject(COUNT_BY_AUTHOR_QUERY, Long.class, author);
+    }
 
+    // Asynchronous variants, run on virtual threads with at most course.async.max-concurrency calls in flight
+    public CompletableFuture<Course> findByIdAsync(long id) {
+        return asyncExecutor.read(() -> findById(id));
+    }
+
+    public CompletableFuture<List<Course>> findAllByIdAsync(Collection<Long> ids) {
+        return asyncExecutor.readAll(ids, this::findById);
+    }
 
+    public CompletableFuture<Void> insertAsync(Course course) {
+        return asyncExecutor.write(() -> insert(course));
+    }
+
+    public CompletableFuture<Void> deleteByIdAsync(long id) {
+        return asyncExecutor.write(() -> deleteById(id));
+    }
+
+    private String upsertSql() {
+        if (upsertSql == null) {
+            String productName = springJdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            upsertSql = CourseUpsertSql.forDatabase(productName);
+        }
+        return upsertSql.getSql();
+    }
+}
@@ -1,28 +1,192 @@
 package com.randy.springboot.learnjpaandhibernate.course.jpa;
 
 import com.randy.springboot.learnjpaandhibernate.course.Course;
+import com.randy.springboot.learnjpaandhibernate.course.CourseAsyncExecutor;
+import com.randy.springboot.learnjpaandhibernate.course.CourseUpsertSql;
+import com.randy.springboot.learnjpaandhibernate.course.counts.CourseCountChanges;
+import com.randy.springboot.learnjpaandhibernate.course.counts.CourseCounts;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
-import jakarta.transaction.Transactional;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Repository
 @Transactional
 public class CourseJpaRepository {
 
+    private static final int UPSERT_BATCH_SIZE = 500;
+
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Autowired
+    private CourseAsyncExecutor asyncExecutor;
+
+    @Autowired
+    private CourseCounts courseCounts;
+
+    private volatile CourseUpsertSql upsertSql;
+
+    // A course without an id is new, so persist() inserts it straight away and lets the identity column pick the id.
+    // Anything else is an idempotent upsert, merge() would first SELECT the row to decide between INSERT and UPDATE.
     public void insert(Course course){
-        entityManager.merge(course);
+        if (course.getId() == 0) {
+            entityManager.persist(course);
+        } else {
+            upsert(course);
+        }
+    }
+
+    public void upsert(Course course){
+        String author = lockAuthors(List.of(course.getId())).get(course.getId());
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(upsertSql(connection))) {
+                bind(statement, course);
+                statement.executeUpdate();
+            }
+        });
+        CourseCountChanges changes = new CourseCountChanges();
+        changes.upserted(author, course.getAuthor());
+        courseCounts.apply(changes);
+    }
+
+    // Native upserts bypass the persistence context, a managed copy of the same course in an outer transaction
+    // keeps its old state until it is refreshed.
+    public void upsertAll(Collection<Course> courses){
+        if (courses.isEmpty()) {
+            return;
+        }
+        Map<Long, String> authors = lockAuthors(courses.stream().map(Course::getId).toList());
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(upsertSql(connection))) {
+                int pending = 0;
+                for (Course course : courses) {
+                    bind(statement, course);
+                    statement.addBatch();
+                    if (++pending == UPSERT_BATCH_SIZE) {
+                        statement.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    statement.executeBatch();
+                }
+            }
+        });
+        CourseCountChanges changes = new CourseCountChanges();
+        for (Course course : courses) {
+            changes.upserted(authors.put(course.getId(), course.getAuthor()), course.getAuthor());
+        }
+        courseCounts.apply(changes);
     }
 
+    // Read-only transactions are routed to a replica when course.datasource.routing is enabled
+    @Transactional(readOnly = true)
     public Course findById(long id){
         return entityManager.find(Course.class, id);
     }
 
+    @Transactional(readOnly = true)
+    public List<Course> findByAuthor(String author){
+        return entityManager.createQuery("select c from Course c where c.author = :author order by c.id", Course.class)
+                .setParameter("author", author)
+                .getResultList();
+    }
+
+    // Bulk JPQL deletes run as a single DELETE statement and never load the entities into the persistence context.
+    // Managed copies of deleted courses in an outer transaction are not detached, so don't mix them with entity updates.
     public void deleteById(long id){
-        Course course = entityManager.find(Course.class, id);
-        entityManager.remove(course);
+        String author = lockAuthors(List.of(id)).get(id);
+        int deleted = entityManager.createQuery("delete from Course c where c.id = :id")
+                .setParameter("id", id)
+                .executeUpdate();
+        if (deleted > 0) {
+            CourseCountChanges changes = new CourseCountChanges();
+            changes.deleted(author, 1);
+            courseCounts.apply(changes);
+        }
+    }
+
+    public int deleteAllById(Collection<Long> ids){
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Map<Long, String> authors = lockAuthors(ids);
+        int deleted = entityManager.createQuery("delete from Course c where c.id in :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        CourseCountChanges changes = new CourseCountChanges();
+        authors.values().forEach(author -> changes.deleted(author, 1));
+        courseCounts.apply(changes);
+        return deleted;
+    }
+
+    public int deleteByAuthor(String author){
+        int deleted = entityManager.createQuery("delete from Course c where c.author = :author")
+                .setParameter("author", author)
+                .executeUpdate();
+        CourseCountChanges changes = new CourseCountChanges();
+        changes.deleted(author, deleted);
+        courseCounts.apply(changes);
+        return deleted;
+    }
+
+    public int deleteAll(){
+        courseCounts.lockAll();
+        int deleted = entityManager.createQuery("delete from Course c").executeUpdate();
+        courseCounts.clear();
+        return deleted;
+    }
+
+    // Asynchronous variants, run on virtual threads with at most course.async.max-concurrency calls in flight.
+    // SUPPORTS keeps the class level transaction (and its connection) off the calling thread.
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public CompletableFuture<Course> findByIdAsync(long id){
+        return asyncExecutor.read(() -> findById(id));
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public CompletableFuture<List<Course>> findAllByIdAsync(Collection<Long> ids){
+        return asyncExecutor.readAll(ids, this::findById);
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public CompletableFuture<Void> insertAsync(Course course){
+        return asyncExecutor.write(() -> insert(course));
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public CompletableFuture<Void> deleteByIdAsync(long id){
+        return asyncExecutor.write(() -> deleteById(id));
+    }
+
+    // Pending entity changes are flushed first, so the authors read (and counted against) are the ones in the database
+    private Map<Long, String> lockAuthors(Collection<Long> ids) {
+        entityManager.flush();
+        return courseCounts.lockAuthors(ids);
+    }
+
+    private String upsertSql(Connection connection) throws SQLException {
+        if (upsertSql == null) {
+            upsertSql = CourseUpsertSql.forDatabase(connection.getMetaData().getDatabaseProductName());
+        }
+        return upsertSql.getSql();
+    }
+
+    private static void bind(PreparedStatement statement, Course course) throws SQLException {
+        statement.setLong(1, course.getId());
+        statement.setString(2, course.getName());
+        statement.setString(3, course.getAuthor());
     }
 }
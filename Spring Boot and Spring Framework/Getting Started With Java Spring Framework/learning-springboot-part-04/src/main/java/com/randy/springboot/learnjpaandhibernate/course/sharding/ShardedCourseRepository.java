@@ -0,0 +1,295 @@
+package com.randy.springboot.learnjpaandhibernate.course.sharding;
+
+import com.randy.springboot.learnjpaandhibernate.course.Course;
+import com.randy.springboot.learnjpaandhibernate.course.CourseUpsertSql;
+import com.randy.springboot.learnjpaandhibernate.course.sharding.ShardingProperties.ShardKey;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+// Courses partitioned across N databases by a hash of the shard key (id or author, see ShardingProperties).
+// Queries on the shard key go to one shard. Everything else is sent to all shards in parallel (on virtual threads)
+// and the per-shard results, each ordered by id, are merged into one list ordered by id.
+// Sharded by author, the course_shard table on the shard the id hashes to (its home shard) records which shard holds
+// each course. Writes lock that row, so point reads and writes by id go to one shard and two writes to the same id
+// never interleave. A move to another author's shard is: upsert on the new shard, delete on the old one, update
+// course_shard, all while the row is locked.
+// Writes are not transactional across shards: a crash in the middle of a move can leave the course on both shards,
+// the next write to the id (which goes by course_shard) does not clean that up.
+public class ShardedCourseRepository implements AutoCloseable {
+
+    private static String SELECT_QUERY =
+            """
+                    SELECT * from course
+                    WHERE id = ?;
+                    """;
+
+    private static String SELECT_ALL_QUERY =
+            """
+                    SELECT * from course
+                    ORDER BY id;
+                    """;
+
+    private static String SELECT_BY_AUTHOR_QUERY =
+            """
+                    SELECT * from course
+                    WHERE author = ?
+                    ORDER BY id;
+                    """;
+
+    private static String SELECT_BY_NAME_QUERY =
+            """
+                    SELECT * from course
+                    WHERE name = ?
+                    ORDER BY id;
+                    """;
+
+    private static String COUNT_QUERY =
+            """
+                    SELECT count(*) from course;
+                    """;
+
+    private static String DELETE_QUERY =
+            """
+                    delete from course
+                    WHERE id = ?;
+                    """;
+
+    private static String SELECT_SHARD_FOR_UPDATE_QUERY =
+            """
+                    SELECT shard from course_shard
+                    WHERE id = ?
+                    FOR UPDATE;
+                    """;
+
+    private static String SELECT_SHARD_QUERY =
+            """
+                    SELECT shard from course_shard
+                    WHERE id = ?;
+                    """;
+
+    private static String INSERT_SHARD_QUERY =
+            """
+                    insert into course_shard (id, shard)
+                    values(?, ?);
+                    """;
+
+    private static String UPDATE_SHARD_QUERY =
+            """
+                    update course_shard
+                    set shard = ?
+                    WHERE id = ?;
+                    """;
+
+    private static String DELETE_SHARD_QUERY =
+            """
+                    delete from course_shard
+                    WHERE id = ?;
+                    """;
+
+    private static final RowMapper<Course> ROW_MAPPER = new BeanPropertyRowMapper<>(Course.class);
+
+    private final List<DataSource> dataSources;
+    private final List<JdbcTemplate> shards;
+    private final List<TransactionTemplate> transactions;
+    private final List<String> upsertSql;
+    private final ShardKey key;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ShardedCourseRepository(List<DataSource> dataSources, ShardKey key) {
+        this.dataSources = List.copyOf(dataSources);
+        this.shards = this.dataSources.stream().map(JdbcTemplate::new).toList();
+        this.transactions = this.dataSources.stream()
+                .map(dataSource -> new TransactionTemplate(new DataSourceTransactionManager(dataSource)))
+                .toList();
+        this.key = key;
+        this.upsertSql = this.shards.stream()
+                .map(shard -> CourseUpsertSql.forDatabase(shard.execute(
+                        (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName())).getSql())
+                .toList();
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    // Sharded by author, a course whose author moved it to another shard is also removed from its previous shard
+    public void upsert(Course course) {
+        int shard = shardFor(course);
+        if (key == ShardKey.ID) {
+            upsert(shard, course);
+            return;
+        }
+        try {
+            moveTo(shard, course);
+        } catch (DuplicateKeyException ex) {
+            // A concurrent first write of the same id inserted its course_shard row first, this time we lock that row
+            moveTo(shard, course);
+        }
+    }
+
+    public void deleteById(long id) {
+        if (key == ShardKey.ID) {
+            shards.get(shardForId(id)).update(DELETE_QUERY, id);
+            return;
+        }
+        int home = shardForId(id);
+        transactions.get(home).executeWithoutResult(status -> {
+            Integer shard = currentShard(id, SELECT_SHARD_FOR_UPDATE_QUERY);
+            if (shard != null) {
+                shards.get(shard).update(DELETE_QUERY, id);
+                shards.get(home).update(DELETE_SHARD_QUERY, id);
+            }
+        });
+    }
+
+    public Optional<Course> findById(long id) {
+        Integer shard = key == ShardKey.ID ? Integer.valueOf(shardForId(id)) : currentShard(id, SELECT_SHARD_QUERY);
+        if (shard == null) {
+            return Optional.empty();
+        }
+        return shards.get(shard).query(SELECT_QUERY, ROW_MAPPER, id).stream().findFirst();
+    }
+
+    public List<Course> findByAuthor(String author) {
+        if (key == ShardKey.AUTHOR) {
+            return shards.get(shardForAuthor(author)).query(SELECT_BY_AUTHOR_QUERY, ROW_MAPPER, author);
+        }
+        return mergeById(scatter(shard -> shard.query(SELECT_BY_AUTHOR_QUERY, ROW_MAPPER, author)));
+    }
+
+    public List<Course> findByName(String name) {
+        return mergeById(scatter(shard -> shard.query(SELECT_BY_NAME_QUERY, ROW_MAPPER, name)));
+    }
+
+    public List<Course> findAll() {
+        return mergeById(scatter(shard -> shard.query(SELECT_ALL_QUERY, ROW_MAPPER)));
+    }
+
+    public long count() {
+        return scatter(shard -> shard.queryForObject(COUNT_QUERY, Long.class)).stream().mapToLong(Long::longValue).sum();
+    }
+
+    @Override
+    public void close() throws Exception {
+        executor.close();
+        for (DataSource dataSource : dataSources) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private void upsert(int shard, Course course) {
+        shards.get(shard).update(upsertSql.get(shard), course.getId(), course.getName(), course.getAuthor());
+    }
+
+    // Runs in a transaction on the id's home shard, holding the lock on its course_shard row
+    private void moveTo(int shard, Course course) {
+        long id = course.getId();
+        int home = shardForId(id);
+        transactions.get(home).executeWithoutResult(status -> {
+            Integer current = currentShard(id, SELECT_SHARD_FOR_UPDATE_QUERY);
+            if (current == null) {
+                shards.get(home).update(INSERT_SHARD_QUERY, id, shard);
+            }
+            upsert(shard, course);
+            if (current != null && current != shard) {
+                shards.get(current).update(DELETE_QUERY, id);
+                shards.get(home).update(UPDATE_SHARD_QUERY, shard, id);
+            }
+        });
+    }
+
+    private Integer currentShard(long id, String query) {
+        return shards.get(shardForId(id)).query(query, (rs, rowNum) -> rs.getInt(1), id).stream().findFirst().orElse(null);
+    }
+
+    int shardFor(Course course) {
+        return key == ShardKey.ID ? shardForId(course.getId()) : shardForAuthor(course.getAuthor());
+    }
+
+    int shardForId(long id) {
+        return Math.floorMod(mix(Long.hashCode(id)), shards.size());
+    }
+
+    int shardForAuthor(String author) {
+        return Math.floorMod(mix(author.hashCode()), shards.size());
+    }
+
+    // Spreads sequential ids and similar author names evenly (murmur3 finalizer)
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    // Runs the query on every shard at once and returns the results in shard order, the first failure is rethrown
+    private <T> List<T> scatter(Function<JdbcTemplate, T> query) {
+        List<Future<T>> futures = new ArrayList<>(shards.size());
+        for (JdbcTemplate shard : shards) {
+            futures.add(executor.submit(() -> query.apply(shard)));
+        }
+        List<T> results = new ArrayList<>(shards.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the shards", ex);
+        } catch (ExecutionException ex) {
+            futures.forEach(future -> future.cancel(true));
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+        return results;
+    }
+
+    // k-way merge of lists that are each ordered by id
+    static List<Course> mergeById(List<List<Course>> sortedLists) {
+        PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparingLong(head -> head.course().getId()));
+        int size = 0;
+        for (List<Course> list : sortedLists) {
+            size += list.size();
+            Iterator<Course> iterator = list.iterator();
+            if (iterator.hasNext()) {
+                heads.add(new Head(iterator.next(), iterator));
+            }
+        }
+        List<Course> merged = new ArrayList<>(size);
+        while (!heads.isEmpty()) {
+            Head head = heads.poll();
+            merged.add(head.course());
+            if (head.rest().hasNext()) {
+                heads.add(new Head(head.rest().next(), head.rest()));
+            }
+        }
+        return merged;
+    }
+
+    private record Head(Course course, Iterator<Course> rest) {
+    }
+}
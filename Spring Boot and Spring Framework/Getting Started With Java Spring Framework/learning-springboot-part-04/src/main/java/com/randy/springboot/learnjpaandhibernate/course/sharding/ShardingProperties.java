@@ -0,0 +1,87 @@
+package com.randy.springboot.learnjpaandhibernate.course.sharding;
+
+//course.sharding.enabled=true
+//course.sharding.key=id
+//course.sharding.shards[0].url=jdbc:h2:mem:shard0
+//course.sharding.shards[1].url=jdbc:h2:mem:shard1
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "course.sharding")
+public class ShardingProperties {
+    private boolean enabled;
+    private ShardKey key = ShardKey.ID;
+    // The shard order is part of the hash, adding, removing or reordering shards needs a data migration
+    private List<Shard> shards = new ArrayList<>();
+    // Runs shard-schema.sql against every shard on startup, for local H2 shard stand-ins
+    private boolean initializeShards;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public ShardKey getKey() {
+        return key;
+    }
+
+    public void setKey(ShardKey key) {
+        this.key = key;
+    }
+
+    public List<Shard> getShards() {
+        return shards;
+    }
+
+    public void setShards(List<Shard> shards) {
+        this.shards = shards;
+    }
+
+    public boolean isInitializeShards() {
+        return initializeShards;
+    }
+
+    public void setInitializeShards(boolean initializeShards) {
+        this.initializeShards = initializeShards;
+    }
+
+    public enum ShardKey {
+        ID, AUTHOR
+    }
+
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+    }
+}
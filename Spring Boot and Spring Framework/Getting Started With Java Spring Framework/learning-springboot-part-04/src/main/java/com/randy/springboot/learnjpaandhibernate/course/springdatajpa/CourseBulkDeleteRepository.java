@@ -0,0 +1,30 @@
+package com.randy.springboot.learnjpaandhibernate.course.springdatajpa;
+
+import com.randy.springboot.learnjpaandhibernate.course.Course;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+
+// Single-statement deletes. The inherited deleteById/deleteAllById (and derived deleteBy... methods) load each entity
+// before removing it. The *InBatch methods are overridden here as well, so that every bulk delete updates the course
+// counts (see CourseCounts). Like @Modifying(clearAutomatically = true), they clear the persistence context afterwards.
+public interface CourseBulkDeleteRepository {
+
+    @Transactional
+    int deleteByIdInBulk(long id);
+
+    @Transactional
+    int deleteAllByIdInBulk(Collection<Long> ids);
+
+    @Transactional
+    int deleteAllByAuthorInBulk(String author);
+
+    @Transactional
+    void deleteAllByIdInBatch(Iterable<Long> ids);
+
+    @Transactional
+    void deleteAllInBatch(Iterable<Course> courses);
+
+    @Transactional
+    void deleteAllInBatch();
+}
@@ -0,0 +1,56 @@
+package com.randy.springboot.learnjpaandhibernate.course.springdatajpa;
+
+import com.randy.springboot.learnjpaandhibernate.course.Course;
+import com.randy.springboot.learnjpaandhibernate.course.jpa.CourseJpaRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.StreamSupport;
+
+// The bulk JPQL deletes of CourseJpaRepository, which also count what they delete
+class CourseBulkDeleteRepositoryImpl implements CourseBulkDeleteRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private CourseJpaRepository jpaRepository;
+
+    @Override
+    public int deleteByIdInBulk(long id) {
+        return deleteAllByIdInBulk(List.of(id));
+    }
+
+    @Override
+    public int deleteAllByIdInBulk(Collection<Long> ids) {
+        int deleted = jpaRepository.deleteAllById(ids);
+        entityManager.clear();
+        return deleted;
+    }
+
+    @Override
+    public int deleteAllByAuthorInBulk(String author) {
+        int deleted = jpaRepository.deleteByAuthor(author);
+        entityManager.clear();
+        return deleted;
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<Long> ids) {
+        deleteAllByIdInBulk(StreamSupport.stream(ids.spliterator(), false).toList());
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<Course> courses) {
+        deleteAllByIdInBulk(StreamSupport.stream(courses.spliterator(), false).map(Course::getId).toList());
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        jpaRepository.deleteAll();
+        entityManager.clear();
+    }
+}
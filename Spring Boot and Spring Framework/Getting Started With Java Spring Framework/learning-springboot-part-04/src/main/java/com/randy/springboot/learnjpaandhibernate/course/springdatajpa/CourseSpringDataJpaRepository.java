@@ -1,11 +1,48 @@
 package com.randy.springboot.learnjpaandhibernate.course.springdatajpa;
 
 import com.randy.springboot.learnjpaandhibernate.course.Course;
+import com.randy.springboot.learnjpaandhibernate.course.CourseAuthorCount;
+import com.randy.springboot.learnjpaandhibernate.course.CourseAuthorView;
+import com.randy.springboot.learnjpaandhibernate.course.CourseSummary;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
-public interface CourseSpringDataJpaRepository extends JpaRepository <Course, Long> {//<Entity managed, PK field type?>
+// Query methods are read-only (and routed to a replica when course.datasource.routing is enabled),
+// the inherited save/delete methods keep their own read-write transactions
+@Transactional(readOnly = true)
+public interface CourseSpringDataJpaRepository extends JpaRepository <Course, Long>, CourseBulkDeleteRepository {//<Entity managed, PK field type?>
     List<Course> findByAuthor(String author);
     List<Course> findByName(String Name);
+
+    // Projections, only the projected columns are selected (both lookups use the author/name indexes)
+    List<CourseSummary> findSummariesByAuthor(String author);
+    List<CourseAuthorView> findAuthorsByName(String name);
+
+    // Slice does not run the extra count query a Page would
+    Slice<CourseSummary> findSummariesByAuthor(String author, Pageable pageable);
+
+    // Keyset pagination, start with ScrollPosition.keyset() and continue from window.positionAt(window.size() - 1)
+    Window<Course> findByAuthorOrderByIdAsc(String author, ScrollPosition position, Limit limit);
+    Window<Course> findByNameOrderByIdAsc(String name, ScrollPosition position, Limit limit);
+
+    // Served from the counts CourseCounts maintains, the inherited count() would scan the course table
+    @Override
+    @Query(value = "select coalesce(sum(course_count), 0) from course_count", nativeQuery = true)
+    long count();
+
+    @Query(value = "select coalesce(sum(course_count), 0) from course_author_count where author = :author", nativeQuery = true)
+    long countByAuthor(@Param("author") String author);
+
+    @Query(value = "select author, sum(course_count) as courseCount from course_author_count group by author "
+            + "having sum(course_count) > 0 order by author", nativeQuery = true)
+    List<CourseAuthorCount> findAuthorCounts();
 }
@@ -0,0 +1,24 @@
+package com.randy.springboot.learnjpaandhibernate.course.writebehind;
+
+import com.randy.springboot.learnjpaandhibernate.course.jdbc.CourseJdbcRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@Configuration
+@ConditionalOnProperty(prefix = "course.write-behind", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(WriteBehindProperties.class)
+public class WriteBehindConfiguration {
+
+    // close() runs before the data source is shut down, so the final flush can still reach the database
+    @Bean
+    public WriteBehindCourseRepository writeBehindCourseRepository(CourseJdbcRepository repository,
+                                                                   PlatformTransactionManager transactionManager,
+                                                                   WriteBehindProperties properties,
+                                                                   MeterRegistry meterRegistry) {
+        return new WriteBehindCourseRepository(repository, transactionManager, properties, meterRegistry);
+    }
+}
@@ -0,0 +1,186 @@
+package com.randy.springboot.learnjpaandhibernate.course.writebehind;
+
+import com.randy.springboot.learnjpaandhibernate.course.Course;
+import com.randy.springboot.learnjpaandhibernate.course.jdbc.CourseJdbcRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Buffers course writes in memory and flushes them to CourseJdbcRepository in batches, see WriteBehindProperties.
+// Writes to the same id are coalesced, only the latest state (or the delete) is written.
+// A buffered write stays visible to findById until its flush has committed, so callers always read their own writes.
+// Only these point reads see buffered writes: queries made straight on CourseJdbcRepository (findByAuthor,
+// findByName, count...) see the database as of the last flush.
+// While flushes keep failing, writes to new ids are rejected once maxPending * pendingLimitFactor ids are buffered.
+// Buffered writes are lost if the process dies before a flush, close() flushes everything on a normal shutdown
+// and later writes are rejected.
+public class WriteBehindCourseRepository implements AutoCloseable {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final Map<Long, Mutation> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private volatile boolean closed;
+    private final ScheduledExecutorService flusher =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("course-write-behind").daemon().factory());
+    private final CourseJdbcRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final WriteBehindProperties properties;
+    private final int pendingLimit;
+    private final Timer flushTimer;
+    private final Counter coalesced;
+    private final Counter flushed;
+    private final Counter flushFailures;
+    private final Counter rejected;
+
+    public WriteBehindCourseRepository(CourseJdbcRepository repository, PlatformTransactionManager transactionManager,
+                                       WriteBehindProperties properties, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.pendingLimit = properties.getMaxPending() * properties.getPendingLimitFactor();
+        Gauge.builder("course.write-behind.pending", pending, Map::size)
+                .description("Course ids with writes waiting to be flushed").register(meterRegistry);
+        Gauge.builder("course.write-behind.pending.limit", () -> pendingLimit)
+                .description("Pending course ids at which writes to new ids are rejected").register(meterRegistry);
+        this.rejected = Counter.builder("course.write-behind.rejected")
+                .description("Writes rejected because the buffer was full").register(meterRegistry);
+        this.flushTimer = Timer.builder("course.write-behind.flush").register(meterRegistry);
+        this.coalesced = Counter.builder("course.write-behind.coalesced")
+                .description("Writes replaced by a later write to the same course before being flushed").register(meterRegistry);
+        this.flushed = Counter.builder("course.write-behind.flushed").register(meterRegistry);
+        this.flushFailures = Counter.builder("course.write-behind.flush.failures").register(meterRegistry);
+        flusher.scheduleWithFixedDelay(this::flushQuietly, properties.getFlushIntervalMillis(),
+                properties.getFlushIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void save(Course course) {
+        // Copied, so changes the caller makes after save() are not flushed
+        buffer(course.getId(), new Mutation(new Course(course.getId(), course.getName(), course.getAuthor())));
+    }
+
+    public void deleteById(long id) {
+        buffer(id, Mutation.DELETE);
+    }
+
+    public Optional<Course> findById(long id) {
+        Mutation mutation = pending.get(id);
+        if (mutation != null) {
+            return Optional.ofNullable(mutation.course()).map(c -> new Course(c.getId(), c.getName(), c.getAuthor()));
+        }
+        try {
+            return Optional.of(repository.findById(id));
+        } catch (EmptyResultDataAccessException ex) {
+            return Optional.empty();
+        }
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    // Writes everything buffered so far: upserts and deletes in one transaction.
+    // Entries are only removed afterwards, and only if no newer write to the same id arrived in the meantime.
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushRequested.set(false);
+            if (pending.isEmpty()) {
+                return;
+            }
+            Map<Long, Mutation> batch = Map.copyOf(pending);
+            List<Course> upserts = new ArrayList<>();
+            List<Long> deletes = new ArrayList<>();
+            batch.forEach((id, mutation) -> {
+                if (mutation.course() == null) {
+                    deletes.add(id);
+                } else {
+                    upserts.add(mutation.course());
+                }
+            });
+            flushTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+                repository.upsertAll(upserts);
+                repository.deleteAllById(deletes);
+            }));
+            batch.forEach(pending::remove);
+            flushed.increment(batch.size());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void buffer(long id, Mutation mutation) {
+        if (closed) {
+            throw new IllegalStateException("Course write-behind is closed, write to course " + id + " rejected");
+        }
+        // Rewriting an id that is already buffered does not grow the buffer, so it is always accepted.
+        // Concurrent writers can overshoot the limit by at most one entry each.
+        if (pending.size() >= pendingLimit && !pending.containsKey(id)) {
+            rejected.increment();
+            throw new IllegalStateException("Course write-behind buffer is full (" + pendingLimit
+                    + " pending courses, flushes are failing), write to course " + id + " rejected");
+        }
+        if (pending.put(id, mutation) != null) {
+            coalesced.increment();
+        }
+        if (closed) {
+            // close() raced with this write and may already have done its final flush, write it through
+            flush();
+            return;
+        }
+        if (pending.size() >= properties.getMaxPending() && flushRequested.compareAndSet(false, true)) {
+            try {
+                flusher.execute(this::flushQuietly);
+            } catch (RejectedExecutionException ex) {
+                // close() shut the flusher down after the check above, its final flush writes this one
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    // On failure the writes stay buffered and the next flush retries them
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException ex) {
+            flushFailures.increment();
+            logger.error("Course write-behind flush failed, {} writes stay buffered", pending.size(), ex);
+        }
+    }
+
+    // A null course means the course is deleted
+    private record Mutation(Course course) {
+        static final Mutation DELETE = new Mutation(null);
+    }
+}
@@ -0,0 +1,46 @@
+package com.randy.springboot.learnjpaandhibernate.course.writebehind;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "course.write-behind")
+public class WriteBehindProperties {
+    private boolean enabled;
+    // A flush starts as soon as this many course ids have pending writes...
+    private int maxPending = 500;
+    // ...or this long after the previous flush, whichever comes first
+    private long flushIntervalMillis = 1000;
+    // While flushes fail, writes to new ids are rejected once maxPending * pendingLimitFactor ids are buffered
+    private int pendingLimitFactor = 10;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxPending() {
+        return maxPending;
+    }
+
+    public void setMaxPending(int maxPending) {
+        this.maxPending = maxPending;
+    }
+
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    public void setFlushIntervalMillis(long flushIntervalMillis) {
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    public int getPendingLimitFactor() {
+        return pendingLimitFactor;
+    }
+
+    public void setPendingLimitFactor(int pendingLimitFactor) {
+        this.pendingLimitFactor = pendingLimitFactor;
+    }
+}
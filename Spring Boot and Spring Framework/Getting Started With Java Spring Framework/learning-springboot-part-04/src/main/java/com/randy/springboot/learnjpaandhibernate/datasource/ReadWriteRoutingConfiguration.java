@@ -0,0 +1,86 @@
+package com.randy.springboot.learnjpaandhibernate.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// Replaces the auto-configured spring.datasource pool with primary + replicas when course.datasource.routing.enabled=true
+@Configuration
+@ConditionalOnProperty(prefix = "course.datasource.routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReadWriteRoutingProperties.class)
+public class ReadWriteRoutingConfiguration {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    @Bean(destroyMethod = "close")
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(DataSourceProperties dataSourceProperties,
+                                                                 ReadWriteRoutingProperties properties) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+
+        List<ReadWriteRoutingDataSource.Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            ReadWriteRoutingProperties.Replica replica = properties.getReplicas().get(i);
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("replica-" + i);
+            dataSource.setJdbcUrl(replica.getUrl());
+            dataSource.setUsername(replica.getUsername());
+            dataSource.setPassword(replica.getPassword());
+            // A replica that is down (at startup or later) must not stop or stall reads, they fall back to the primary
+            dataSource.setInitializationFailTimeout(-1);
+            dataSource.setConnectionTimeout(Math.max(250, properties.getValidationTimeoutSeconds() * 1000L));
+            if (properties.isInitializeReplicas()) {
+                initializeSchema(dataSource);
+            }
+            replicas.add(new ReadWriteRoutingDataSource.Replica(dataSource.getPoolName(), dataSource));
+        }
+        return new ReadWriteRoutingDataSource(primary, replicas, properties.getValidationTimeoutSeconds());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }
+
+    @Bean
+    public ReplicaHealthCheck replicaHealthCheck(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new ReplicaHealthCheck(readWriteRoutingDataSource);
+    }
+
+    private void initializeSchema(DataSource dataSource) {
+        try {
+            DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource("schema.sql")), dataSource);
+        } catch (RuntimeException ex) {
+            logger.warn("Could not initialize replica schema", ex);
+        }
+    }
+
+    public static class ReplicaHealthCheck {
+        private final ReadWriteRoutingDataSource readWriteRoutingDataSource;
+
+        ReplicaHealthCheck(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+            this.readWriteRoutingDataSource = readWriteRoutingDataSource;
+        }
+
+        @Scheduled(fixedDelayString = "${course.datasource.routing.health-check-interval-millis:5000}")
+        public void checkReplicas() {
+            readWriteRoutingDataSource.checkReplicas();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.randy.springboot.learnjpaandhibernate.instrumentation;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+// Proxies connections, statements and result sets so that every execution is timed and reported to the QueryRecorder.
+// Bind parameters are captured from the setXxx(index, value) calls of prepared statements.
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+    private static final Object[] NO_PARAMETERS = new Object[0];
+
+    private final QueryRecorder recorder;
+
+    public InstrumentedDataSource(DataSource targetDataSource, QueryRecorder recorder) {
+        super(targetDataSource);
+        this.recorder = recorder;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection()));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection(username, password)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    // equals, hashCode and toString are answered by the proxy itself: passed through, a proxy would not be equal to
+    // itself for pools and Hibernate, which only ever see the proxy
+    private static Object invoke(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "toString" -> "Instrumented " + target;
+                default -> invoke(target, method, args);
+            };
+        }
+        return invoke(target, method, args);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+
+        ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = InstrumentedDataSource.invoke(proxy, connection, method, args);
+            String sql = args != null && args.length > 0 && args[0] instanceof String string ? string : null;
+            if (result instanceof CallableStatement statement) {
+                return proxy(CallableStatement.class, new StatementHandler(statement, sql));
+            }
+            if (result instanceof PreparedStatement statement) {
+                return proxy(PreparedStatement.class, new StatementHandler(statement, sql));
+            }
+            if (result instanceof Statement statement) {
+                return proxy(Statement.class, new StatementHandler(statement, null));
+            }
+            return result;
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final String preparedSql;
+        private Object[] parameters = NO_PARAMETERS;
+        private String batchSql;
+        // The scopes of the last execution, for the result set getResultSet() returns after execute()
+        private List<QueryStatistics> scopes = List.of();
+
+        StatementHandler(Statement statement, String preparedSql) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                bind(index, name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters = NO_PARAMETERS;
+            } else if (name.equals("addBatch") && args != null) {
+                batchSql = (String) args[0];
+            } else if (name.startsWith("execute")) {
+                return execute(method, args);
+            } else if (name.equals("getResultSet")) {
+                return countRows((ResultSet) InstrumentedDataSource.invoke(statement, method, args), scopes);
+            }
+            return InstrumentedDataSource.invoke(proxy, statement, method, args);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            String sql = args != null && args.length > 0 && args[0] instanceof String string
+                    ? string : preparedSql != null ? preparedSql : batchSql;
+            long start = System.nanoTime();
+            Object result = InstrumentedDataSource.invoke(statement, method, args);
+            long elapsed = System.nanoTime() - start;
+            // execute() returns true when the statement produced a result set
+            boolean read = result instanceof ResultSet || Boolean.TRUE.equals(result);
+            scopes = List.copyOf(recorder.statementExecuted(sql == null ? "" : sql, parameters, elapsed,
+                    updatedRows(result), read));
+            return result instanceof ResultSet resultSet ? countRows(resultSet, scopes) : result;
+        }
+
+        private void bind(int index, Object value) {
+            if (index > parameters.length) {
+                parameters = Arrays.copyOf(parameters, Math.max(index, parameters.length * 2));
+            }
+            parameters[index - 1] = value;
+        }
+
+        private ResultSet countRows(ResultSet resultSet, List<QueryStatistics> scopes) {
+            return resultSet == null ? null : proxy(ResultSet.class, new ResultSetHandler(resultSet, scopes));
+        }
+
+        private long updatedRows(Object result) {
+            if (result instanceof Integer count) {
+                return Math.max(count, 0);
+            }
+            if (result instanceof Long count) {
+                return Math.max(count, 0);
+            }
+            if (result instanceof int[] counts) {
+                return Arrays.stream(counts).filter(count -> count > 0).sum();
+            }
+            if (result instanceof long[] counts) {
+                return Arrays.stream(counts).filter(count -> count > 0).sum();
+            }
+            return 0;
+        }
+    }
+
+    private class ResultSetHandler implements InvocationHandler {
+        private final ResultSet resultSet;
+        private final List<QueryStatistics> scopes;
+        private long rows;
+        private boolean reported;
+
+        ResultSetHandler(ResultSet resultSet, List<QueryStatistics> scopes) {
+            this.resultSet = resultSet;
+            this.scopes = scopes;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = InstrumentedDataSource.invoke(proxy, resultSet, method, args);
+            String name = method.getName();
+            if (name.equals("next") && Boolean.TRUE.equals(result)) {
+                rows++;
+            } else if ((name.equals("next") || name.equals("close")) && !reported) {
+                reported = true;
+                recorder.rowsRead(scopes, rows);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.randy.springboot.learnjpaandhibernate.instrumentation;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+// Replaces spring.jpa.show-sql: statements are timed and aggregated instead of printed, see JdbcInstrumentationProperties
+@Configuration
+@ConditionalOnProperty(prefix = "course.jdbc.instrumentation", name = "enabled", matchIfMissing = true)
+@EnableConfigurationProperties(JdbcInstrumentationProperties.class)
+public class JdbcInstrumentationConfiguration {
+
+    @Bean
+    public QueryRecorder queryRecorder(JdbcInstrumentationProperties properties, MeterRegistry meterRegistry) {
+        return new QueryRecorder(properties, meterRegistry);
+    }
+
+    @Bean
+    public JdbcRequestStatisticsFilter jdbcRequestStatisticsFilter(QueryRecorder queryRecorder) {
+        return new JdbcRequestStatisticsFilter(queryRecorder);
+    }
+
+    // Only the "dataSource" bean is wrapped, with read/write routing enabled the pools behind it must not be counted twice
+    @Bean
+    public static BeanPostProcessor instrumentedDataSourcePostProcessor(ObjectProvider<QueryRecorder> queryRecorder) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && beanName.equals("dataSource")) {
+                    return new InstrumentedDataSource(dataSource, queryRecorder.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package com.randy.springboot.learnjpaandhibernate.instrumentation;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "course.jdbc.instrumentation")
+public class JdbcInstrumentationProperties {
+    private boolean enabled = true;
+    // Statements at or above this latency are candidates for the slow query log
+    private long slowQueryThresholdMillis = 100;
+    // Fraction (0.0 - 1.0) of slow statements that are actually logged, with their bind parameters
+    private double slowQuerySampleRate = 1.0;
+    // The same SQL run this many times with different parameters in one request or transaction is reported as N+1
+    private int nPlusOneThreshold = 5;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getSlowQueryThresholdMillis() {
+        return slowQueryThresholdMillis;
+    }
+
+    public void setSlowQueryThresholdMillis(long slowQueryThresholdMillis) {
+        this.slowQueryThresholdMillis = slowQueryThresholdMillis;
+    }
+
+    public double getSlowQuerySampleRate() {
+        return slowQuerySampleRate;
+    }
+
+    public void setSlowQuerySampleRate(double slowQuerySampleRate) {
+        this.slowQuerySampleRate = slowQuerySampleRate;
+    }
+
+    public int getNPlusOneThreshold() {
+        return nPlusOneThreshold;
+    }
+
+    public void setNPlusOneThreshold(int nPlusOneThreshold) {
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+}
@@ -0,0 +1,32 @@
+package com.randy.springboot.learnjpaandhibernate.instrumentation;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Opens a statement scope around every request, so N+1 detection and jdbc.request.statements cover the whole request
+public class JdbcRequestStatisticsFilter extends OncePerRequestFilter {
+
+    private final QueryRecorder recorder;
+
+    public JdbcRequestStatisticsFilter(QueryRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try (QueryStatistics statistics = recorder.openScope(request.getMethod() + " " + request.getRequestURI())) {
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                // Failed requests are the ones worth seeing
+                recorder.recordRequest(statistics);
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.randy.springboot.learnjpaandhibernate.instrumentation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Receives every statement executed through InstrumentedDataSource: feeds the open scopes of the current thread,
+// the sampled slow query log and the jdbc.* metrics
+public class QueryRecorder {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ThreadLocal<List<QueryStatistics>> scopes = ThreadLocal.withInitial(ArrayList::new);
+    private final ThreadLocal<QueryStatistics> transactionScope = new ThreadLocal<>();
+    private final Map<String, Timer> timersByType = new ConcurrentHashMap<>();
+    private final JdbcInstrumentationProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary rows;
+    private final DistributionSummary statementsPerRequest;
+    private final DistributionSummary statementsPerTransaction;
+    private final Counter nPlusOne;
+    private final long slowQueryThresholdNanos;
+
+    public QueryRecorder(JdbcInstrumentationProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.rows = DistributionSummary.builder("jdbc.rows").description("Rows read or written per statement").register(meterRegistry);
+        this.statementsPerRequest = DistributionSummary.builder("jdbc.request.statements").register(meterRegistry);
+        this.statementsPerTransaction = DistributionSummary.builder("jdbc.transaction.statements").register(meterRegistry);
+        this.nPlusOne = Counter.builder("jdbc.n-plus-one").description("Suspected N+1 statement patterns").register(meterRegistry);
+        this.slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(properties.getSlowQueryThresholdMillis());
+    }
+
+    // Counts every statement the current thread executes until the returned scope is closed
+    public QueryStatistics openScope(String name) {
+        QueryStatistics statistics = new QueryStatistics(name, this);
+        scopes.get().add(statistics);
+        return statistics;
+    }
+
+    void closeScope(QueryStatistics statistics) {
+        List<QueryStatistics> open = scopes.get();
+        open.remove(statistics);
+        if (open.isEmpty()) {
+            scopes.remove();
+        }
+    }
+
+    void recordRequest(QueryStatistics statistics) {
+        statementsPerRequest.record(statistics.getStatements());
+        if (logger.isDebugEnabled() && statistics.getStatements() > 0) {
+            logger.debug("{}", statistics);
+        }
+    }
+
+    // Returns the scopes that rows of this statement's result set should be added to.
+    // Only reads (statements returning a result set) are checked for N+1, repeated inserts, updates and merges with
+    // different parameters are what saves and batched upserts look like.
+    List<QueryStatistics> statementExecuted(String sql, Object[] parameters, long elapsedNanos, long updatedRows, boolean read) {
+        openTransactionScopeIfNeeded();
+        List<QueryStatistics> open = scopes.get();
+        int parametersHash = read ? Arrays.hashCode(parameters) : 0;
+        for (int i = 0; i < open.size(); i++) {
+            QueryStatistics statistics = open.get(i);
+            if (statistics.statementExecuted(sql, read, parametersHash, elapsedNanos, properties.getNPlusOneThreshold())) {
+                nPlusOne.increment();
+                logger.warn("Possible N+1 in {}: {} executed {} times with different parameters",
+                        statistics.getName(), singleLine(sql), properties.getNPlusOneThreshold());
+            }
+            statistics.rowsProcessed(updatedRows);
+        }
+        timer(sql).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (updatedRows > 0) {
+            rows.record(updatedRows);
+        }
+        if (elapsedNanos >= slowQueryThresholdNanos
+                && ThreadLocalRandom.current().nextDouble() < properties.getSlowQuerySampleRate()) {
+            logger.warn("Slow query ({} ms): {} parameters {}", TimeUnit.NANOSECONDS.toMillis(elapsedNanos), singleLine(sql),
+                    Arrays.toString(parameters));
+        }
+        return open;
+    }
+
+    void rowsRead(List<QueryStatistics> statistics, long count) {
+        for (int i = 0; i < statistics.size(); i++) {
+            statistics.get(i).rowsProcessed(count);
+        }
+        rows.record(count);
+    }
+
+    private void openTransactionScopeIfNeeded() {
+        if (transactionScope.get() != null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        QueryStatistics statistics = openScope("transaction " + (name == null ? "" : name));
+        transactionScope.set(statistics);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                transactionScope.remove();
+                statistics.close();
+                statementsPerTransaction.record(statistics.getStatements());
+            }
+        });
+    }
+
+    private Timer timer(String sql) {
+        String type = statementType(sql);
+        return timersByType.computeIfAbsent(type, key -> Timer.builder("jdbc.statement")
+                .description("JDBC statement execution time")
+                .tag("type", key)
+                .register(meterRegistry));
+    }
+
+    private static String singleLine(String sql) {
+        return sql.strip().replaceAll("\\s+", " ");
+    }
+
+    // Low cardinality tag: the leading SQL keyword
+    private static String statementType(String sql) {
+        String trimmed = sql.stripLeading();
+        int end = 0;
+        while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end))) {
+            end++;
+        }
+        String keyword = trimmed.substring(0, end).toLowerCase(Locale.ROOT);
+        return switch (keyword) {
+            case "select", "insert", "update", "delete", "merge", "call" -> keyword;
+            default -> "other";
+        };
+    }
+}
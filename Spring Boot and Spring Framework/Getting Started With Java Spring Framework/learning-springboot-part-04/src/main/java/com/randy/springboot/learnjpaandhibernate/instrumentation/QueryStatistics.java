@@ -0,0 +1,73 @@
+package com.randy.springboot.learnjpaandhibernate.instrumentation;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Statement counters for one scope (a request, a transaction or an explicit QueryRecorder.openScope block).
+// Only ever touched by the thread that opened it.
+public class QueryStatistics implements AutoCloseable {
+
+    private final String name;
+    private final QueryRecorder recorder;
+    private final Map<String, Set<Integer>> parametersBySql = new HashMap<>();
+    private final Set<String> nPlusOneSql = new HashSet<>();
+    private int statements;
+    private long rows;
+    private long nanos;
+
+    QueryStatistics(String name, QueryRecorder recorder) {
+        this.name = name;
+        this.recorder = recorder;
+    }
+
+    // Returns true the first time a read crosses the N+1 threshold in this scope
+    boolean statementExecuted(String sql, boolean read, int parametersHash, long elapsedNanos, int nPlusOneThreshold) {
+        statements++;
+        nanos += elapsedNanos;
+        if (!read) {
+            return false;
+        }
+        Set<Integer> parameters = parametersBySql.computeIfAbsent(sql, key -> new HashSet<>());
+        if (parameters.size() < nPlusOneThreshold) {
+            parameters.add(parametersHash);
+            return parameters.size() == nPlusOneThreshold && nPlusOneSql.add(sql);
+        }
+        return false;
+    }
+
+    void rowsProcessed(long count) {
+        rows += count;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public Set<String> getNPlusOneSql() {
+        return nPlusOneSql;
+    }
+
+    @Override
+    public void close() {
+        recorder.closeScope(this);
+    }
+
+    @Override
+    public String toString() {
+        return name + ": " + statements + " statements, " + rows + " rows, " + (nanos / 1_000) + " us";
+    }
+}
@@ -1,7 +1,40 @@
-create table course
+create table if not exists course
 (
     id bigint NOT NULL AUTO_INCREMENT,
     name varchar(255) NOT NULL,
     author varchar(255) NOT NULL,
     PRIMARY KEY(id)
-);
\ No newline at end of file
+);
+
+-- id is the trailing column so keyset pagination (WHERE author = ? AND id > ? ORDER BY id) stays an index range scan
+create index if not exists idx_course_author on course (author, id);
+create index if not exists idx_course_name on course (name, id);
+
+-- Counts maintained by the repositories (CourseCounts) in the same transaction as every write to course,
+-- so count() and countByAuthor() never scan the course table. CourseCountReconciler corrects any drift.
+-- Each count is spread over stripe rows (CourseCounts.STRIPES) that are summed on read, concurrent writers update
+-- different stripes instead of queueing on one row lock.
+create table if not exists course_count
+(
+    stripe int NOT NULL,
+    course_count bigint NOT NULL,
+    PRIMARY KEY(stripe)
+);
+
+create table if not exists course_author_count
+(
+    author varchar(255) NOT NULL,
+    stripe int NOT NULL,
+    course_count bigint NOT NULL,
+    PRIMARY KEY(author, stripe)
+);
+
+insert into course_count (stripe, course_count)
+select s.stripe, case when s.stripe = 0 then (select count(*) from course) else 0 end
+from (values (0), (1), (2), (3), (4), (5), (6), (7), (8), (9), (10), (11), (12), (13), (14), (15)) s (stripe)
+where not exists (select 1 from course_count);
+
+insert into course_author_count (author, stripe, course_count)
+select author, 0, count(*) from course
+where not exists (select 1 from course_author_count)
+group by author;
@@ -0,0 +1,20 @@
+-- Schema of a ShardedCourseRepository shard: the course table of schema.sql without the summary count tables,
+-- which only the repositories of the main database maintain
+create table if not exists course
+(
+    id bigint NOT NULL AUTO_INCREMENT,
+    name varchar(255) NOT NULL,
+    author varchar(255) NOT NULL,
+    PRIMARY KEY(id)
+);
+
+create index if not exists idx_course_author on course (author, id);
+create index if not exists idx_course_name on course (name, id);
+
+-- Sharded by author: the shard holding each course, kept on the shard the id hashes to
+create table if not exists course_shard
+(
+    id bigint NOT NULL,
+    shard int NOT NULL,
+    PRIMARY KEY(id)
+);
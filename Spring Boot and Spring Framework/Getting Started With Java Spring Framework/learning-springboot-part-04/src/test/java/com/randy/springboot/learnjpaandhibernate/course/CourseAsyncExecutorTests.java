@@ -0,0 +1,39 @@
+package com.randy.springboot.learnjpaandhibernate.course;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CourseAsyncExecutorTests {
+
+    private final CourseAsyncExecutor executor = new CourseAsyncExecutor(
+            new DataSourceTransactionManager(new DriverManagerDataSource("jdbc:h2:mem:async-test")), 4);
+
+    @Test
+    void fanOutKeepsKeyOrderAndStaysWithinTheConcurrencyLimit() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Long> ids = LongStream.rangeClosed(1, 50).boxed().toList();
+
+        List<Long> results = executor.readAll(ids, id -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            return id * 10;
+        }).get();
+
+        assertThat(results).hasSize(50).startsWith(10L, 20L).endsWith(500L);
+        assertThat(maxRunning.get()).isLessThanOrEqualTo(4).isGreaterThan(1);
+        executor.shutdown();
+    }
+}
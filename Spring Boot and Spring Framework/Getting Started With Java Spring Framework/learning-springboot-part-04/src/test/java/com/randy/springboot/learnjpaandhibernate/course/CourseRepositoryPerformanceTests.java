@@ -0,0 +1,101 @@
+package com.randy.springboot.learnjpaandhibernate.course;
+
+import com.randy.springboot.learnjpaandhibernate.course.jdbc.CourseJdbcRepository;
+import com.randy.springboot.learnjpaandhibernate.course.jpa.CourseJpaRepository;
+import com.randy.springboot.learnjpaandhibernate.course.springdatajpa.CourseSpringDataJpaRepository;
+import com.randy.springboot.learnjpaandhibernate.instrumentation.QueryRecorder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static com.randy.springboot.learnjpaandhibernate.support.PerformanceAssertions.assertLatency;
+import static com.randy.springboot.learnjpaandhibernate.support.PerformanceAssertions.assertMaxAllocatedBytes;
+import static com.randy.springboot.learnjpaandhibernate.support.PerformanceAssertions.assertMaxStatements;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Budgets are several times what the operations need today, they catch regressions like an N+1 or a lost index.
+// Statement and allocation budgets are deterministic and run with every build, latency budgets only with -Platency.
+@SpringBootTest
+class CourseRepositoryPerformanceTests {
+
+    private static final String AUTHOR = "Performance Author";
+    private static final List<Long> IDS = LongStream.rangeClosed(4001, 4020).boxed().toList();
+
+    @Autowired
+    private QueryRecorder queryRecorder;
+
+    @Autowired
+    private CourseJdbcRepository jdbcRepository;
+
+    @Autowired
+    private CourseJpaRepository jpaRepository;
+
+    @Autowired
+    private CourseSpringDataJpaRepository springDataJpaRepository;
+
+    @BeforeEach
+    void insertCourses() {
+        jdbcRepository.upsertAll(IDS.stream().map(id -> new Course(id, "Course " + id, AUTHOR)).toList());
+    }
+
+    @AfterEach
+    void deleteCourses() {
+        jdbcRepository.deleteAllById(IDS);
+    }
+
+    @Test
+    void jdbcRepository() {
+        assertMaxStatements(queryRecorder, 1, () -> jdbcRepository.findById(4001));
+        assertMaxStatements(queryRecorder, 1, () -> jdbcRepository.findByAuthor(AUTHOR));
+        assertMaxStatements(queryRecorder, 1, () -> jdbcRepository.count());
+        // JDBC batches of 500 rows, each with its row lock query, plus the two course count updates (see CourseCounts)
+        assertMaxStatements(queryRecorder, 6, () -> jdbcRepository.upsertAll(
+                LongStream.rangeClosed(4101, 5000).mapToObj(id -> new Course(id, "Course " + id, AUTHOR)).toList()));
+        assertMaxStatements(queryRecorder, 3, () -> jdbcRepository.deleteByAuthor(AUTHOR));
+
+        jdbcRepository.upsertAll(IDS.stream().map(id -> new Course(id, "Course " + id, AUTHOR)).toList());
+        assertMaxAllocatedBytes(48 * 1024, 200, () -> jdbcRepository.findById(4001));
+    }
+
+    @Test
+    void jpaRepository() {
+        assertMaxStatements(queryRecorder, 1, () -> jpaRepository.findById(4001));
+        assertThat(assertMaxStatements(queryRecorder, 1, () -> jpaRepository.findByAuthor(AUTHOR))).hasSize(IDS.size());
+        // Row lock query + batch, the authors don't change so the counts aren't touched
+        assertMaxStatements(queryRecorder, 2, () -> jpaRepository.upsertAll(
+                IDS.stream().map(id -> new Course(id, "Course " + id + " v2", AUTHOR)).toList()));
+        // Row lock query, delete and the two count updates
+        assertMaxStatements(queryRecorder, 4, () -> jpaRepository.deleteAllById(IDS));
+
+        jdbcRepository.upsertAll(IDS.stream().map(id -> new Course(id, "Course " + id, AUTHOR)).toList());
+        assertMaxAllocatedBytes(48 * 1024, 200, () -> jpaRepository.findById(4001));
+    }
+
+    @Test
+    void springDataJpaRepository() {
+        assertMaxStatements(queryRecorder, 1, () -> springDataJpaRepository.findById(4001L));
+        assertThat(assertMaxStatements(queryRecorder, 1, () -> springDataJpaRepository.findByAuthor(AUTHOR))).hasSize(IDS.size());
+        assertMaxStatements(queryRecorder, 1, () -> springDataJpaRepository.findSummariesByAuthor(AUTHOR));
+        assertMaxStatements(queryRecorder, 1, () -> springDataJpaRepository.count());
+        assertMaxStatements(queryRecorder, 1, () -> springDataJpaRepository.countByAuthor(AUTHOR));
+        assertMaxStatements(queryRecorder, 4, () -> springDataJpaRepository.deleteAllByIdInBulk(IDS));
+
+        jdbcRepository.upsertAll(IDS.stream().map(id -> new Course(id, "Course " + id, AUTHOR)).toList());
+        assertMaxAllocatedBytes(128 * 1024, 200, () -> springDataJpaRepository.findByAuthor(AUTHOR));
+    }
+
+    @Test
+    @Tag("latency")
+    void latency() {
+        assertLatency(Duration.ofMillis(20), 95, 500, () -> jdbcRepository.findById(4001));
+        assertLatency(Duration.ofMillis(20), 95, 500, () -> jpaRepository.findById(4001));
+        assertLatency(Duration.ofMillis(20), 95, 500, () -> springDataJpaRepository.findByAuthor(AUTHOR));
+    }
+}
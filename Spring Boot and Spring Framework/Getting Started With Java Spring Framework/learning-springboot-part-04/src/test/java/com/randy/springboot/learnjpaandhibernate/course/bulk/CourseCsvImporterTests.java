@@ -0,0 +1,160 @@
+package com.randy.springboot.learnjpaandhibernate.course.bulk;
+
+import com.randy.springboot.learnjpaandhibernate.course.jdbc.CourseJdbcRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.EmptyResultDataAccessException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {"course.import.writers=3", "course.import.batch-size=7"})
+class CourseCsvImporterTests {
+
+    @Autowired
+    private CourseCsvImporter importer;
+
+    @Autowired
+    private CourseJdbcRepository repository;
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void importsValidRowsAndRejectsTheRest() throws Exception {
+        Path file = directory.resolve("courses.csv");
+        // Left over from an earlier import of the same file
+        Files.writeString(directory.resolve("courses.csv.rejected"), "42,name is blank,1,,Randy Huynh\n");
+        StringBuilder csv = new StringBuilder(CourseCsv.HEADER).append('\n');
+        LongStream.rangeClosed(5001, 5100).forEach(id -> CourseCsv.appendRow(csv, id, "Course " + id, "Author, " + id));
+        csv.append("5101,\"Multi\nline\",Randy Huynh\r\n");
+        csv.append("not-a-number,Learn CSV,Randy Huynh\n");
+        csv.append("5102,,Randy Huynh\n");
+        Files.writeString(file, csv);
+
+        CourseImportResult result = importer.importFile(file);
+
+        assertThat(result.rowsRead()).isEqualTo(103);
+        assertThat(result.rowsWritten()).isEqualTo(101);
+        assertThat(result.rowsRejected()).isEqualTo(2);
+        assertThat(repository.findById(5050).getAuthor()).isEqualTo("Author, 5050");
+        assertThat(repository.findById(5101).getName()).isEqualTo("Multi\nline");
+        assertThat(Files.readAllLines(directory.resolve("courses.csv.rejected")))
+                .hasSize(2)
+                .anySatisfy(line -> assertThat(line).contains("id is not a number"))
+                .anySatisfy(line -> assertThat(line).contains("name is blank"));
+        assertThat(directory.resolve("courses.csv.checkpoint")).doesNotExist();
+
+        repository.deleteAllById(LongStream.rangeClosed(5001, 5101).boxed().toList());
+    }
+
+    @Test
+    void strayQuoteAndOverlongLinesOnlyRejectThemselves() throws Exception {
+        Path file = directory.resolve("stray.csv");
+        StringBuilder csv = new StringBuilder(CourseCsv.HEADER).append('\n');
+        csv.append("6101,\"Stray quote,Randy Huynh\n");
+        // Far more than MAX_RECORD_LENGTH characters follow the stray quote
+        LongStream.rangeClosed(6102, 6200).forEach(id -> CourseCsv.appendRow(csv, id, "Course " + id, "Randy Huynh"));
+        csv.append("6201,").append("x".repeat(10 * CourseCsvImporter.MAX_RECORD_LENGTH)).append(",Randy Huynh\n");
+        CourseCsv.appendRow(csv, 6202, "Course 6202", "Randy Huynh");
+        csv.append("6203,\"Unterminated at the end of the file,Randy Huynh\n");
+        Files.writeString(file, csv);
+
+        CourseImportResult result = importer.importFile(file);
+
+        assertThat(result.rowsWritten()).isEqualTo(100);
+        assertThat(result.rowsRejected()).isEqualTo(3);
+        assertThat(repository.findById(6102).getName()).isEqualTo("Course 6102");
+        assertThat(repository.findById(6202).getName()).isEqualTo("Course 6202");
+        assertThat(Files.readAllLines(directory.resolve("stray.csv.rejected")))
+                .hasSize(3)
+                .anySatisfy(line -> assertThat(line).contains("longer than"))
+                .filteredOn(line -> line.contains("unterminated quote")).hasSize(2);
+
+        repository.deleteAllById(LongStream.rangeClosed(6101, 6203).boxed().toList());
+    }
+
+    @Test
+    void lastRowForAnIdWins() throws Exception {
+        Path file = directory.resolve("repeated.csv");
+        StringBuilder csv = new StringBuilder(CourseCsv.HEADER).append('\n');
+        for (int version = 1; version <= 20; version++) {
+            for (long id = 6301; id <= 6310; id++) {
+                CourseCsv.appendRow(csv, id, "Course " + id + " v" + version, "Randy Huynh");
+            }
+        }
+        Files.writeString(file, csv);
+
+        importer.importFile(file);
+
+        LongStream.rangeClosed(6301, 6310).forEach(id -> assertThat(repository.findById(id).getName()).isEqualTo("Course " + id + " v20"));
+
+        repository.deleteAllById(LongStream.rangeClosed(6301, 6310).boxed().toList());
+    }
+
+    @Test
+    void resumesFromTheCheckpoint() throws Exception {
+        Path file = directory.resolve("resume.csv");
+        StringBuilder csv = new StringBuilder(CourseCsv.HEADER).append('\n');
+        LongStream.rangeClosed(6001, 6010).forEach(id -> CourseCsv.appendRow(csv, id, "Course " + id, "Randy Huynh"));
+        int rejectedBefore = csv.length();
+        csv.append("6000,,Randy Huynh\n");
+        int firstHalf = csv.toString().getBytes().length;
+        LongStream.rangeClosed(6011, 6020).forEach(id -> CourseCsv.appendRow(csv, id, "Course " + id, "Randy Huynh"));
+        int rejectedAfter = csv.length();
+        csv.append("6021,,Randy Huynh\n");
+        Files.writeString(file, csv);
+        CourseCsvImporter.writeCheckpoint(directory.resolve("resume.csv.checkpoint"),
+                CourseCsvImporter.FileVersion.of(file), firstHalf);
+        // What the interrupted run left behind: both rejections, the second one torn by the crash
+        Files.writeString(directory.resolve("resume.csv.rejected"),
+                rejectedBefore + ",name is blank,6000,,Randy Huynh\n" + rejectedAfter + ",name is bl");
+
+        CourseImportResult result = importer.importFile(file);
+
+        assertThat(result.rowsWritten()).isEqualTo(10);
+        assertThatThrownBy(() -> repository.findById(6001)).isInstanceOf(EmptyResultDataAccessException.class);
+        assertThat(repository.findById(6011).getName()).isEqualTo("Course 6011");
+        assertThat(Files.readAllLines(directory.resolve("resume.csv.rejected"))).containsExactly(
+                rejectedBefore + ",name is blank,6000,,Randy Huynh",
+                rejectedAfter + ",name is blank,6021,,Randy Huynh");
+        assertThat(directory.resolve("resume.csv.checkpoint")).doesNotExist();
+
+        repository.deleteAllById(LongStream.rangeClosed(6011, 6020).boxed().toList());
+    }
+
+    @Test
+    void importsANewFileAtTheSamePathFromTheStart() throws Exception {
+        Path file = directory.resolve("replaced.csv");
+        Path checkpointFile = directory.resolve("replaced.csv.checkpoint");
+        StringBuilder first = new StringBuilder(CourseCsv.HEADER).append('\n');
+        LongStream.rangeClosed(6401, 6410).forEach(id -> CourseCsv.appendRow(first, id, "First " + id, "Randy Huynh"));
+        Files.writeString(file, first);
+
+        assertThat(importer.importFile(file).rowsWritten()).isEqualTo(10);
+        assertThat(checkpointFile).doesNotExist();
+        assertThat(importer.importFile(file).rowsWritten()).isEqualTo(10);
+
+        // An interrupted import of the first file left a checkpoint halfway through it
+        CourseCsvImporter.writeCheckpoint(checkpointFile, CourseCsvImporter.FileVersion.of(file), Files.size(file) / 2);
+        Files.writeString(directory.resolve("replaced.csv.rejected"), "50,name is blank,6405,,Randy Huynh\n");
+        StringBuilder second = new StringBuilder(CourseCsv.HEADER).append('\n');
+        LongStream.rangeClosed(6401, 6420).forEach(id -> CourseCsv.appendRow(second, id, "Second " + id, "Randy Huynh"));
+        Files.writeString(file, second);
+
+        CourseImportResult result = importer.importFile(file);
+
+        assertThat(result.rowsWritten()).isEqualTo(20);
+        assertThat(repository.findById(6401).getName()).isEqualTo("Second 6401");
+        assertThat(Files.readAllLines(directory.resolve("replaced.csv.rejected"))).isEmpty();
+        assertThat(checkpointFile).doesNotExist();
+
+        repository.deleteAllById(LongStream.rangeClosed(6401, 6420).boxed().toList());
+    }
+}
@@ -0,0 +1,105 @@
+package com.randy.springboot.learnjpaandhibernate.course.bulk;
+
+import com.randy.springboot.learnjpaandhibernate.course.Course;
+import com.randy.springboot.learnjpaandhibernate.course.jdbc.CourseJdbcRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "course.export.fetch-size=2")
+@AutoConfigureMockMvc
+class CourseExporterTests {
+
+    @Autowired
+    private CourseExporter exporter;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CourseJdbcRepository repository;
+
+    @TempDir
+    private Path directory;
+
+    @BeforeEach
+    void insertCourses() {
+        repository.upsertAll(List.of(
+                new Course(7001, "Learn \"Streaming\", Fast", "Randy Huynh"),
+                new Course(7002, "Línea\nnueva", "Zoë")));
+    }
+
+    @AfterEach
+    void deleteCourses() {
+        repository.deleteAllById(List.of(7001L, 7002L));
+    }
+
+    @Test
+    void exportsCsvThatTheImporterCanRead() throws Exception {
+        Path file = directory.resolve("courses.csv");
+
+        long rows = exporter.export(CourseExportFormat.CSV, false, file);
+
+        String csv = Files.readString(file);
+        assertThat(csv).startsWith(CourseCsv.HEADER + "\n")
+                .contains("7001,\"Learn \"\"Streaming\"\", Fast\",Randy Huynh\n")
+                .contains("7002,\"Línea\nnueva\",Zoë\n");
+        assertThat(rows).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void exportsGzippedNdjson() throws Exception {
+        Path file = directory.resolve("courses.ndjson.gz");
+
+        long rows = exporter.export(CourseExportFormat.NDJSON, true, file);
+
+        String ndjson;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            ndjson = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertThat(ndjson.lines()).hasSize((int) rows)
+                .contains("{\"id\":7001,\"name\":\"Learn \\\"Streaming\\\", Fast\",\"author\":\"Randy Huynh\"}")
+                .contains("{\"id\":7002,\"name\":\"Línea\\nnueva\",\"author\":\"Zoë\"}");
+    }
+
+    @Test
+    void servesGzippedExportsAsGzipFiles() throws Exception {
+        MvcResult result = mockMvc.perform(get("/courses/export").param("format", "ndjson").param("gzip", "true"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/gzip"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"courses.ndjson.gz\""))
+                .andReturn();
+
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).contains("{\"id\":7001,");
+        }
+    }
+
+    @Test
+    void rejectsUnknownFormats() throws Exception {
+        mockMvc.perform(get("/courses/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,111 @@
+package com.randy.springboot.learnjpaandhibernate.course.counts;
+
+import com.randy.springboot.learnjpaandhibernate.course.Course;
+import com.randy.springboot.learnjpaandhibernate.course.jdbc.CourseJdbcRepository;
+import com.randy.springboot.learnjpaandhibernate.course.jpa.CourseJpaRepository;
+import com.randy.springboot.learnjpaandhibernate.course.springdatajpa.CourseSpringDataJpaRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class CourseCountTests {
+
+    @Autowired
+    private CourseJdbcRepository jdbcRepository;
+
+    @Autowired
+    private CourseJpaRepository jpaRepository;
+
+    @Autowired
+    private CourseSpringDataJpaRepository springDataJpaRepository;
+
+    @Autowired
+    private CourseCountReconciler reconciler;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void countsFollowEveryWritePath() {
+        long total = tableCount();
+
+        jdbcRepository.insert(new Course(9001, "Learn Counting", "Count Author"));
+        jpaRepository.upsertAll(List.of(new Course(9002, "Learn Counting 2", "Count Author"),
+                new Course(9003, "Learn Counting 3", "Other Count Author")));
+        jpaRepository.upsert(new Course(9003, "Learn Counting 3", "Count Author"));
+        // Entity writes are counted by CourseCountEventListener
+        Course saved = springDataJpaRepository.save(new Course(0, "Learn Counting 4", "Other Count Author"));
+        saved.setAuthor("Count Author");
+        springDataJpaRepository.save(saved);
+        springDataJpaRepository.save(new Course(0, "Learn Counting 5", "Count Author"));
+        springDataJpaRepository.deleteById(saved.getId());
+
+        assertThat(springDataJpaRepository.count()).isEqualTo(total + 4).isEqualTo(tableCount());
+        assertThat(jdbcRepository.count()).isEqualTo(total + 4);
+        assertThat(springDataJpaRepository.countByAuthor("Count Author")).isEqualTo(4);
+        assertThat(jdbcRepository.countByAuthor("Other Count Author")).isZero();
+        assertThat(springDataJpaRepository.findAuthorCounts())
+                .anySatisfy(count -> {
+                    assertThat(count.getAuthor()).isEqualTo("Count Author");
+                    assertThat(count.getCourseCount()).isEqualTo(4);
+                })
+                .noneSatisfy(count -> assertThat(count.getAuthor()).isEqualTo("Other Count Author"));
+
+        springDataJpaRepository.deleteAllByAuthorInBulk("Count Author");
+
+        assertThat(springDataJpaRepository.count()).isEqualTo(total).isEqualTo(tableCount());
+        assertThat(springDataJpaRepository.countByAuthor("Count Author")).isZero();
+    }
+
+    @Test
+    void concurrentWritersSpreadOverStripes() throws Exception {
+        long total = tableCount();
+        List<Long> ids = LongStream.rangeClosed(9101, 9500).boxed().toList();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<Future<?>> inserts = ids.stream()
+                    .<Future<?>>map(id -> executor.submit(() -> jdbcRepository.insert(new Course(id, "Concurrent " + id, "Concurrent Author"))))
+                    .toList();
+            for (Future<?> insert : inserts) {
+                insert.get();
+            }
+        }
+
+        assertThat(jdbcRepository.count()).isEqualTo(total + ids.size()).isEqualTo(tableCount());
+        assertThat(jdbcRepository.countByAuthor("Concurrent Author")).isEqualTo(ids.size());
+        assertThat(jdbcTemplate.queryForObject("select count(*) from course_author_count where author = 'Concurrent Author'", Long.class))
+                .isGreaterThan(1);
+
+        assertThat(jdbcRepository.deleteAllById(ids)).isEqualTo(ids.size());
+        assertThat(jdbcRepository.count()).isEqualTo(total);
+        assertThat(jdbcRepository.countByAuthor("Concurrent Author")).isZero();
+    }
+
+    @Test
+    void reconcileCorrectsDrift() {
+        jdbcTemplate.update("update course_count set course_count = course_count + 42 where stripe = 3");
+        jdbcTemplate.update("insert into course_author_count (author, stripe, course_count) values ('Ghost Author', 5, 7)");
+        // count() reads the maintained total, not the table
+        assertThat(springDataJpaRepository.count()).isEqualTo(tableCount() + 42);
+
+        assertThat(reconciler.reconcile()).isPositive();
+
+        assertThat(jdbcRepository.count()).isEqualTo(tableCount());
+        assertThat(jdbcRepository.countByAuthor("Ghost Author")).isZero();
+        assertThat(reconciler.reconcile()).isZero();
+    }
+
+    private long tableCount() {
+        return jdbcTemplate.queryForObject("select count(*) from course", Long.class);
+    }
+}
@@ -0,0 +1,34 @@
+package com.randy.springboot.learnjpaandhibernate.course.jpa;
+
+import com.randy.springboot.learnjpaandhibernate.course.Course;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class CourseJpaRepositoryTests {
+
+    @Autowired
+    private CourseJpaRepository repository;
+
+    @Test
+    void upsertInsertsThenOverwrites() {
+        repository.upsert(new Course(1001, "Learn Upserts", "Randy Huynh"));
+        repository.upsertAll(List.of(new Course(1001, "Learn Upserts 2", "Randy Huynh"), new Course(1002, "Learn Merge", "Randy Huynh")));
+
+        assertThat(repository.findById(1001).getName()).isEqualTo("Learn Upserts 2");
+        assertThat(repository.findById(1002).getName()).isEqualTo("Learn Merge");
+
+        repository.deleteAllById(List.of(1001L, 1002L));
+    }
+
+    @Test
+    void deletingAMissingCourseIsANoOp() {
+        repository.deleteById(-1);
+        assertThat(repository.deleteAllById(List.of(-1L, -2L))).isZero();
+    }
+}
@@ -0,0 +1,114 @@
+package com.randy.springboot.learnjpaandhibernate.course.sharding;
+
+import com.randy.springboot.learnjpaandhibernate.course.Course;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"course.sharding.enabled=true", "course.sharding.initialize-shards=true",
+        "course.sharding.shards[0].url=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1",
+        "course.sharding.shards[1].url=jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1",
+        "course.sharding.shards[2].url=jdbc:h2:mem:shard2;DB_CLOSE_DELAY=-1"})
+class ShardedCourseRepositoryTests {
+
+    @Autowired
+    private ShardedCourseRepository repository;
+
+    @Test
+    void spreadsCoursesByIdAndMergesScatterGatherResults() {
+        LongStream.rangeClosed(1, 30).forEach(id ->
+                repository.upsert(new Course(id, id % 2 == 0 ? "Even" : "Odd", "Author " + id % 3)));
+
+        assertThat(LongStream.rangeClosed(1, 30).mapToInt(repository::shardForId).distinct().count()).isEqualTo(3);
+        assertThat(repository.count()).isEqualTo(30);
+        assertThat(repository.findAll()).extracting(Course::getId).isSorted().hasSize(30);
+        assertThat(repository.findByName("Even")).extracting(Course::getId)
+                .containsExactlyElementsOf(LongStream.rangeClosed(1, 30).filter(id -> id % 2 == 0).boxed().toList());
+        assertThat(repository.findByAuthor("Author 0")).extracting(Course::getId).isSorted().hasSize(10);
+        assertThat(repository.findById(7)).map(Course::getName).contains("Odd");
+
+        LongStream.rangeClosed(1, 30).forEach(repository::deleteById);
+        assertThat(repository.count()).isZero();
+    }
+
+    @Test
+    void authorShardingKeepsAnAuthorOnOneShard() throws Exception {
+        List<DataSource> dataSources = authorShards("author-shard");
+        try (ShardedCourseRepository byAuthor = new ShardedCourseRepository(dataSources, ShardingProperties.ShardKey.AUTHOR)) {
+            byAuthor.upsert(new Course(1, "Learn Sharding", "Randy Huynh"));
+            byAuthor.upsert(new Course(2, "Learn Sharding 2", "Randy Huynh"));
+            JdbcTemplate authorShard = new JdbcTemplate(dataSources.get(byAuthor.shardForAuthor("Randy Huynh")));
+            assertThat(authorShard.queryForObject("select count(*) from course", Integer.class)).isEqualTo(2);
+
+            // Moving a course to another author must not leave a copy on the old author's shard
+            String otherAuthor = LongStream.range(0, 100).mapToObj(i -> "Author " + i)
+                    .filter(author -> byAuthor.shardForAuthor(author) != byAuthor.shardForAuthor("Randy Huynh"))
+                    .findFirst().orElseThrow();
+            byAuthor.upsert(new Course(2, "Learn Sharding 2", otherAuthor));
+
+            assertThat(byAuthor.count()).isEqualTo(2);
+            assertThat(byAuthor.findById(2)).map(Course::getAuthor).contains(otherAuthor);
+            assertThat(byAuthor.findByAuthor("Randy Huynh")).extracting(Course::getId).containsExactly(1L);
+            // Nothing maintains the summary count tables on a shard, so they are not created there
+            assertThat(authorShard.queryForObject("select count(*) from information_schema.tables where table_name like 'COURSE_%COUNT'",
+                    Integer.class)).isZero();
+        }
+    }
+
+    @Test
+    void concurrentMovesLeaveExactlyOneCopy() throws Exception {
+        List<DataSource> dataSources = authorShards("move-shard");
+        try (ShardedCourseRepository byAuthor = new ShardedCourseRepository(dataSources, ShardingProperties.ShardKey.AUTHOR);
+             ExecutorService writers = Executors.newFixedThreadPool(4)) {
+            List<String> authors = LongStream.range(0, 100).mapToObj(i -> "Author " + i).toList();
+            String first = authors.get(0);
+            String second = authors.stream().filter(author -> byAuthor.shardForAuthor(author) != byAuthor.shardForAuthor(first))
+                    .findFirst().orElseThrow();
+            List<Future<?>> moves = new ArrayList<>();
+            for (int writer = 0; writer < 4; writer++) {
+                String author = writer % 2 == 0 ? first : second;
+                moves.add(writers.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        byAuthor.upsert(new Course(1, "Learn Sharding", author));
+                    }
+                }));
+            }
+            for (Future<?> move : moves) {
+                move.get();
+            }
+
+            assertThat(byAuthor.count()).isEqualTo(1);
+            String author = byAuthor.findById(1).orElseThrow().getAuthor();
+            assertThat(byAuthor.findByAuthor(author)).extracting(Course::getId).containsExactly(1L);
+
+            byAuthor.deleteById(1);
+            assertThat(byAuthor.count()).isZero();
+            assertThat(byAuthor.findById(1)).isEmpty();
+        }
+    }
+
+    private static List<DataSource> authorShards(String name) {
+        List<DataSource> dataSources = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + i + ";DB_CLOSE_DELAY=-1");
+            DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource("shard-schema.sql")), dataSource);
+            dataSources.add(dataSource);
+        }
+        return dataSources;
+    }
+}
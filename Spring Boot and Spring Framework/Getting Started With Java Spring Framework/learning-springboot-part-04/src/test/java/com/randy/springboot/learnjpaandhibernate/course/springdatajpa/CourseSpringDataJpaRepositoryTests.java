@@ -0,0 +1,73 @@
+package com.randy.springboot.learnjpaandhibernate.course.springdatajpa;
+
+import com.randy.springboot.learnjpaandhibernate.course.Course;
+import com.randy.springboot.learnjpaandhibernate.course.CourseAuthorView;
+import com.randy.springboot.learnjpaandhibernate.course.CourseSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class CourseSpringDataJpaRepositoryTests {
+
+    @Autowired
+    private CourseSpringDataJpaRepository repository;
+
+    @BeforeEach
+    void insertCourses() {
+        for (int i = 1; i <= 5; i++) {
+            repository.save(new Course(0, "Paging " + i, "Keyset Author"));
+        }
+    }
+
+    @Test
+    void projectionsSelectOnlyProjectedColumns() {
+        List<CourseSummary> summaries = repository.findSummariesByAuthor("Keyset Author");
+        assertThat(summaries).extracting(CourseSummary::name).contains("Paging 1", "Paging 5");
+
+        List<CourseAuthorView> authors = repository.findAuthorsByName("Paging 3");
+        assertThat(authors).extracting(CourseAuthorView::getAuthor).containsExactly("Keyset Author");
+    }
+
+    @Test
+    void sliceDoesNotNeedTotalCount() {
+        Slice<CourseSummary> first = repository.findSummariesByAuthor("Keyset Author", PageRequest.of(0, 2, Sort.by("id")));
+        assertThat(first.getContent()).hasSize(2);
+        assertThat(first.hasNext()).isTrue();
+    }
+
+    @Test
+    void keysetWindowsWalkTheWholeAuthor() {
+        Window<Course> window = repository.findByAuthorOrderByIdAsc("Keyset Author", ScrollPosition.keyset(), Limit.of(2));
+        int seen = window.size();
+        while (window.hasNext()) {
+            window = repository.findByAuthorOrderByIdAsc("Keyset Author", window.positionAt(window.size() - 1), Limit.of(2));
+            seen += window.size();
+        }
+        assertThat(seen).isEqualTo(5);
+    }
+
+    @Test
+    void bulkDeletesRunWithoutLoadingEntities() {
+        List<Long> ids = repository.findSummariesByAuthor("Keyset Author").stream().map(CourseSummary::id).toList();
+
+        assertThat(repository.deleteByIdInBulk(ids.get(0))).isEqualTo(1);
+        assertThat(repository.deleteByIdInBulk(-1)).isZero();
+        assertThat(repository.deleteAllByIdInBulk(ids.subList(1, 3))).isEqualTo(2);
+        assertThat(repository.deleteAllByAuthorInBulk("Keyset Author")).isEqualTo(2);
+        assertThat(repository.findByAuthor("Keyset Author")).isEmpty();
+    }
+}
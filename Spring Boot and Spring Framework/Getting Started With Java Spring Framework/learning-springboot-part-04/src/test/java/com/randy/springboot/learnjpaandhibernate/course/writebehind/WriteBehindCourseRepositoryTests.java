@@ -0,0 +1,114 @@
+package com.randy.springboot.learnjpaandhibernate.course.writebehind;
+
+import com.randy.springboot.learnjpaandhibernate.course.Course;
+import com.randy.springboot.learnjpaandhibernate.course.jdbc.CourseJdbcRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {"course.write-behind.enabled=true", "course.write-behind.max-pending=3",
+        "course.write-behind.flush-interval-millis=60000"})
+class WriteBehindCourseRepositoryTests {
+
+    @Autowired
+    private WriteBehindCourseRepository writeBehind;
+
+    @Autowired
+    private CourseJdbcRepository repository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void coalescesWritesAndReadsThemBeforeTheFlush() {
+        writeBehind.save(new Course(8001, "Learn Buffering", "Randy Huynh"));
+        writeBehind.save(new Course(8001, "Learn Buffering 2", "Randy Huynh"));
+        writeBehind.deleteById(8002);
+
+        assertThat(writeBehind.findById(8001)).map(Course::getName).contains("Learn Buffering 2");
+        assertThat(writeBehind.findById(8002)).isEmpty();
+        assertThatThrownBy(() -> repository.findById(8001)).isInstanceOf(EmptyResultDataAccessException.class);
+        assertThat(meterRegistry.get("course.write-behind.coalesced").counter().count()).isPositive();
+
+        writeBehind.flush();
+
+        assertThat(writeBehind.getPendingCount()).isZero();
+        assertThat(repository.findById(8001).getName()).isEqualTo("Learn Buffering 2");
+
+        writeBehind.deleteById(8001);
+        assertThat(writeBehind.findById(8001)).isEmpty();
+        writeBehind.flush();
+        assertThatThrownBy(() -> repository.findById(8001)).isInstanceOf(EmptyResultDataAccessException.class);
+    }
+
+    @Test
+    void flushesWhenMaxPendingIsReached() throws InterruptedException {
+        for (long id = 8101; id <= 8103; id++) {
+            writeBehind.save(new Course(id, "Course " + id, "Randy Huynh"));
+        }
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (writeBehind.getPendingCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(writeBehind.getPendingCount()).isZero();
+        assertThat(repository.findById(8103).getName()).isEqualTo("Course 8103");
+        repository.deleteAllById(List.of(8101L, 8102L, 8103L));
+    }
+
+    @Test
+    void rejectsNewIdsWhileFlushesKeepFailing() {
+        CourseJdbcRepository failing = new CourseJdbcRepository() {
+            @Override
+            public void upsertAll(Collection<Course> courses) {
+                throw new DataAccessResourceFailureException("database down");
+            }
+        };
+        WriteBehindProperties properties = new WriteBehindProperties();
+        properties.setMaxPending(2);
+        properties.setPendingLimitFactor(2);
+        properties.setFlushIntervalMillis(60000);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        WriteBehindCourseRepository buffered = new WriteBehindCourseRepository(failing, transactionManager, properties, registry);
+
+        for (long id = 8201; id <= 8204; id++) {
+            buffered.save(new Course(id, "Course " + id, "Randy Huynh"));
+        }
+
+        assertThatThrownBy(() -> buffered.save(new Course(8205, "Course 8205", "Randy Huynh")))
+                .isInstanceOf(IllegalStateException.class);
+        buffered.save(new Course(8201, "Course 8201 again", "Randy Huynh"));
+        assertThat(buffered.getPendingCount()).isEqualTo(4);
+        assertThat(registry.get("course.write-behind.pending.limit").gauge().value()).isEqualTo(4);
+        assertThat(registry.get("course.write-behind.rejected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsWritesAfterClose() {
+        WriteBehindProperties properties = new WriteBehindProperties();
+        properties.setFlushIntervalMillis(60000);
+        WriteBehindCourseRepository buffered =
+                new WriteBehindCourseRepository(repository, transactionManager, properties, new SimpleMeterRegistry());
+
+        buffered.close();
+
+        assertThatThrownBy(() -> buffered.save(new Course(8301, "Course 8301", "Randy Huynh")))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(buffered.getPendingCount()).isZero();
+    }
+}
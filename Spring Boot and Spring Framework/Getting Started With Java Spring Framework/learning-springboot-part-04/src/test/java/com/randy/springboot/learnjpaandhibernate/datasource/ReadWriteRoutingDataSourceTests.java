@@ -0,0 +1,63 @@
+package com.randy.springboot.learnjpaandhibernate.datasource;
+
+import com.randy.springboot.learnjpaandhibernate.course.Course;
+import com.randy.springboot.learnjpaandhibernate.course.jdbc.CourseJdbcRepository;
+import com.randy.springboot.learnjpaandhibernate.course.jpa.CourseJpaRepository;
+import com.randy.springboot.learnjpaandhibernate.course.springdatajpa.CourseSpringDataJpaRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A second in-memory H2 database stands in for the read replica, rows written straight into it are only visible to reads
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary-test",
+        "course.datasource.routing.enabled=true",
+        "course.datasource.routing.initialize-replicas=true",
+        "course.datasource.routing.replicas[0].url=jdbc:h2:mem:replica-test;DB_CLOSE_DELAY=-1",
+        "course.datasource.routing.replicas[1].url=jdbc:h2:tcp://localhost:1/unreachable",
+        "course.datasource.routing.health-check-interval-millis=3600000"
+})
+class ReadWriteRoutingDataSourceTests {
+
+    private final JdbcTemplate replica =
+            new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:replica-test;DB_CLOSE_DELAY=-1"));
+
+    @Autowired
+    private ReadWriteRoutingDataSource readWriteRoutingDataSource;
+
+    @Autowired
+    private CourseJdbcRepository jdbcRepository;
+
+    @Autowired
+    private CourseJpaRepository jpaRepository;
+
+    @Autowired
+    private CourseSpringDataJpaRepository springDataJpaRepository;
+
+    @Test
+    void readOnlyWorkGoesToTheReplicaAndWritesToThePrimary() {
+        readWriteRoutingDataSource.checkReplicas();
+        replica.update("INSERT INTO course (id, name, author) VALUES (4001, 'Replica Only', 'Randy Huynh')");
+        jdbcRepository.insert(new Course(4002, "Primary Only", "Randy Huynh"));
+
+        assertThat(jdbcRepository.findById(4001).getName()).isEqualTo("Replica Only");
+        assertThat(jpaRepository.findById(4001).getName()).isEqualTo("Replica Only");
+        assertThat(springDataJpaRepository.findById(4001L)).isPresent();
+
+        assertThat(jpaRepository.findById(4002)).isNull();
+        assertThat(replica.queryForObject("SELECT count(*) FROM course WHERE id = 4002", Integer.class)).isZero();
+    }
+
+    @Test
+    void unreachableReplicasAreTakenOutOfRotation() {
+        readWriteRoutingDataSource.checkReplicas();
+
+        assertThat(readWriteRoutingDataSource.getReplicas())
+                .extracting(ReadWriteRoutingDataSource.Replica::isHealthy)
+                .containsExactly(true, false);
+    }
+}
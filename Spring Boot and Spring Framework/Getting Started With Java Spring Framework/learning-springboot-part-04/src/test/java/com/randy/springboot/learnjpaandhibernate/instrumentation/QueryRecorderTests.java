@@ -0,0 +1,107 @@
+package com.randy.springboot.learnjpaandhibernate.instrumentation;
+
+import com.randy.springboot.learnjpaandhibernate.course.Course;
+import com.randy.springboot.learnjpaandhibernate.course.jdbc.CourseJdbcRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class QueryRecorderTests {
+
+    @Autowired
+    private QueryRecorder queryRecorder;
+
+    @Autowired
+    private CourseJdbcRepository repository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void countsStatementsRowsAndRepeatedLookups() {
+        repository.upsertAll(List.of(
+                new Course(3001, "Learn N+1", "Randy Huynh"), new Course(3002, "Learn N+1", "Randy Huynh"),
+                new Course(3003, "Learn N+1", "Randy Huynh"), new Course(3004, "Learn N+1", "Randy Huynh"),
+                new Course(3005, "Learn N+1", "Randy Huynh")));
+
+        try (QueryStatistics statistics = queryRecorder.openScope("test")) {
+            for (long id = 3001; id <= 3005; id++) {
+                repository.findById(id);
+            }
+
+            assertThat(statistics.getStatements()).isEqualTo(5);
+            assertThat(statistics.getRows()).isEqualTo(5);
+            assertThat(statistics.getNPlusOneSql()).hasSize(1);
+        }
+
+        assertThat(meterRegistry.get("jdbc.statement").tag("type", "select").timer().count()).isGreaterThanOrEqualTo(5);
+        assertThat(meterRegistry.get("jdbc.n-plus-one").counter().count()).isGreaterThanOrEqualTo(1);
+        repository.deleteAllById(List.of(3001L, 3002L, 3003L, 3004L, 3005L));
+    }
+
+    @Test
+    void repeatedWritesAreNotReportedAsNPlusOne() {
+        try (QueryStatistics statistics = queryRecorder.openScope("test")) {
+            for (long id = 3101; id <= 3105; id++) {
+                repository.insert(new Course(id, "Learn N+1", "Randy Huynh"));
+            }
+            repository.upsertAll(List.of(new Course(3101, "Learn N+1 again", "Randy Huynh")));
+            repository.deleteAllById(List.of(3101L, 3102L, 3103L, 3104L, 3105L));
+
+            assertThat(statistics.getStatements()).isGreaterThan(5);
+            assertThat(statistics.getNPlusOneSql()).isEmpty();
+        }
+    }
+
+    @Test
+    void recordsRequestsThatFail() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        JdbcRequestStatisticsFilter filter =
+                new JdbcRequestStatisticsFilter(new QueryRecorder(new JdbcInstrumentationProperties(), registry));
+
+        assertThatThrownBy(() -> filter.doFilter(new MockHttpServletRequest("GET", "/courses"), new MockHttpServletResponse(),
+                (request, response) -> {
+                    throw new IllegalStateException("failed");
+                })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(registry.get("jdbc.request.statements").summary().count()).isEqualTo(1);
+    }
+
+    @Test
+    void proxiesAreEqualToThemselvesAndCountRowsFromGetResultSet() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             QueryStatistics statistics = queryRecorder.openScope("test")) {
+            assertThat(connection).isEqualTo(connection).hasSameHashCodeAs(connection);
+            assertThat(statement).isEqualTo(statement).isNotEqualTo(connection);
+
+            assertThat(statement.execute("SELECT id from course")).isTrue();
+            try (ResultSet resultSet = statement.getResultSet()) {
+                while (resultSet.next()) {
+                    // read every row
+                }
+            }
+
+            assertThat(statistics.getStatements()).isEqualTo(1);
+            assertThat(statistics.getRows()).isEqualTo(repository.count());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.randy.springboot.learnjpaandhibernate.support;
+
+import com.randy.springboot.learnjpaandhibernate.instrumentation.QueryRecorder;
+import com.randy.springboot.learnjpaandhibernate.instrumentation.QueryStatistics;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Budgets for SQL statements, allocation and latency, so a performance regression fails the build.
+// Allocation and latency are measured after WARMUP_RUNS, so JIT compilation and one-off lazy initialization don't count,
+// and only on the calling thread.
+public final class PerformanceAssertions {
+
+    private static final int WARMUP_RUNS = 50;
+
+    private PerformanceAssertions() {
+    }
+
+    public static <T> T assertMaxStatements(QueryRecorder recorder, int maxStatements, Supplier<T> operation) {
+        try (QueryStatistics statistics = recorder.openScope("assertMaxStatements")) {
+            T result = operation.get();
+            assertThat(statistics.getStatements())
+                    .as("SQL statements executed, repeated statements: %s", statistics.getNPlusOneSql())
+                    .isLessThanOrEqualTo(maxStatements);
+            return result;
+        }
+    }
+
+    public static void assertMaxStatements(QueryRecorder recorder, int maxStatements, Runnable operation) {
+        assertMaxStatements(recorder, maxStatements, () -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    // Checks the median of runs measurements, a single GC or safepoint can't fail the test
+    public static void assertMaxAllocatedBytes(long maxBytes, int runs, Runnable operation) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        warmUp(operation);
+        long[] allocated = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            operation.run();
+            allocated[i] = threads.getCurrentThreadAllocatedBytes() - before;
+        }
+        Arrays.sort(allocated);
+        assertThat(allocated[runs / 2]).as("median bytes allocated per run over %d runs", runs).isLessThanOrEqualTo(maxBytes);
+    }
+
+    // e.g. assertLatency(Duration.ofMillis(5), 95, 500, operation): 95% of 500 runs finish within 5 ms.
+    // Wall-clock time depends on the machine, only use it in tests tagged "latency" (mvn -Platency test).
+    public static void assertLatency(Duration budget, double percentile, int runs, Runnable operation) {
+        warmUp(operation);
+        long[] nanos = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            operation.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        int index = Math.max((int) Math.ceil(percentile / 100 * runs) - 1, 0);
+        assertThat(Duration.ofNanos(nanos[index])).as("p%s latency over %d runs", percentile, runs).isLessThanOrEqualTo(budget);
+    }
+
+    private static void warmUp(Runnable operation) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            operation.run();
+        }
+    }
+}
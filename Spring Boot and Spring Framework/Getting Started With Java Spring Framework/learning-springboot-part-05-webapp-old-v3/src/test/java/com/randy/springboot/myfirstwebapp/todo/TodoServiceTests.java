@@ -0,0 +1,52 @@
+package com.randy.springboot.myfirstwebapp.todo;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// TodoService keeps its todos in memory, there is no SQL to count. The allocation budgets are several times what it
+// needs today. Only allocation is checked, wall-clock latency would fail at random on a busy machine.
+class TodoServiceTests {
+
+    private final TodoService todoService = new TodoService();
+
+    @Test
+    void findByUsernameStaysWithinBudget() {
+        assertThat(todoService.findByUsername("randy")).isNotEmpty();
+
+        assertThat(medianAllocatedBytes(() -> todoService.findByUsername("randy"))).isLessThanOrEqualTo(1024);
+    }
+
+    @Test
+    void addThenDeleteStaysWithinBudget() {
+        LocalDate targetDate = LocalDate.now().plusYears(1);
+        Runnable addThenDelete = () -> {
+            todoService.addTodo("performance", "Learn Budgets", targetDate, false);
+            int id = todoService.findByUsername("performance").get(0).getId();
+            todoService.deleteById(id);
+        };
+
+        assertThat(medianAllocatedBytes(addThenDelete)).isLessThanOrEqualTo(2048);
+        assertThat(todoService.findByUsername("performance")).isEmpty();
+    }
+
+    // Bytes the calling thread allocates per run, the median of 200 runs after 50 warm-up runs (JIT compilation)
+    private static long medianAllocatedBytes(Runnable operation) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < 50; i++) {
+            operation.run();
+        }
+        long[] allocated = new long[200];
+        for (int i = 0; i < allocated.length; i++) {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            operation.run();
+            allocated[i] = threads.getCurrentThreadAllocatedBytes() - before;
+        }
+        Arrays.sort(allocated);
+        return allocated[allocated.length / 2];
+    }
+}
@@ -0,0 +1,49 @@
+#!/usr/bin/env bash
+# Startup time and time to first request of a module built with: mvn -Paot-cds package [-Daot-cds.directory=<dir>]
+#
+#   ./measure-startup.sh <build directory> <path of the first request> [runs]
+#   ./measure-startup.sh /tmp/part-04-cds /actuator/health 5
+#   ./measure-startup.sh /tmp/part-05-webapp-old-v3-cds /login 5
+#
+# Each run starts the plain jar as a normal JVM, with the AOT-generated context, and with AOT plus the CDS archive.
+# "started" is what Spring Boot logs as "Started ... in", "first request" is wall-clock time from launching java
+# until the first HTTP response.
+set -euo pipefail
+
+directory=${1:?build directory}
+path=${2:?path of the first request}
+runs=${3:-5}
+java=${JAVA_HOME:+$JAVA_HOME/bin/}java
+port=18080
+jar=$(ls "$directory"/*-SNAPSHOT.jar | head -1)
+
+measure() {
+    local mode=$1
+    shift
+    local started_total=0 first_request_total=0
+    for ((run = 1; run <= runs; run++)); do
+        local log
+        log=$(mktemp)
+        local start
+        start=$(date +%s%N)
+        "$java" "$@" -jar "$jar" --server.port=$port >"$log" 2>&1 &
+        local pid=$!
+        until curl -s -o /dev/null "http://localhost:$port$path"; do
+            sleep 0.01
+        done
+        local first_request=$((($(date +%s%N) - start) / 1000000))
+        local started
+        started=$(grep -oE 'Started .* in [0-9.]+ seconds' "$log" | grep -oE '[0-9.]+ seconds' | cut -d' ' -f1)
+        kill "$pid"
+        wait "$pid" 2>/dev/null || true
+        rm -f "$log"
+        started_total=$(awk "BEGIN { print $started_total + $started * 1000 }")
+        first_request_total=$((first_request_total + first_request))
+    done
+    printf '%-10s started %6.0f ms   first request %6d ms   (mean of %d runs)\n' \
+        "$mode" "$(awk "BEGIN { print $started_total / $runs }")" $((first_request_total / runs)) "$runs"
+}
+
+measure jvm
+measure aot -Dspring.aot.enabled=true
+measure aot+cds -Dspring.aot.enabled=true -XX:SharedArchiveFile="$directory/application.jsa"